@@ -0,0 +1,70 @@
+package fr.genin.geocoding;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import fr.genin.geocoding.Utils.Splitter;
+
+/**
+ * The communes of the bundled csv, loaded once for all the benchmarks.
+ */
+final class Communes {
+
+    static final String RESOURCE = "/eucircos_regions_departements_circonscriptions_communes_gps.csv";
+
+    static final List<String> LINES = lines();
+
+    static final List<Commune> ALL = LINES.stream().skip(1).map(Communes::commune).collect(Collectors.toList());
+
+    private Communes() {
+    }
+
+    private static List<String> lines() {
+        try (BufferedReader reader = new BufferedReader(new InputStreamReader(
+                Communes.class.getResourceAsStream(RESOURCE), StandardCharsets.UTF_8))) {
+            return reader.lines().collect(Collectors.toCollection(ArrayList::new));
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private static Commune commune(String line) {
+        final List<String> strings = Splitter.on(';').splitToList(line);
+        final Commune commune = new Commune();
+        commune.name = strings.get(8);
+        commune.postalCode = strings.get(9);
+        if (strings.size() >= 13) {
+            commune.latitude = parseDouble(strings.get(11));
+            commune.longitude = parseDouble(strings.get(12));
+        }
+        return commune;
+    }
+
+    private static Double parseDouble(String s) {
+        try {
+            return Double.valueOf(s);
+        } catch (NumberFormatException nbe) {
+            return null;
+        }
+    }
+
+    static Point<Commune> point(Commune c) {
+        return Point.builder(c).lat(c.latitude).lon(c.longitude).build();
+    }
+
+    /**
+     * Commune datas.
+     */
+    static final class Commune {
+        String name;
+        String postalCode;
+        Double latitude;
+        Double longitude;
+    }
+}
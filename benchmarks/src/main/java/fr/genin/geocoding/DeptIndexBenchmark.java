@@ -0,0 +1,48 @@
+package fr.genin.geocoding;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+import fr.genin.geocoding.Communes.Commune;
+import org.openjdk.jmh.annotations.*;
+
+/**
+ * Benchmarks of the nearest communes in an department and its limitrophs.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class DeptIndexBenchmark {
+
+    private static final double LAT = 46.246992;
+    private static final double LON = 0.832142;
+
+    private DeptIndex<Commune> index;
+
+    @Setup
+    public void setup() {
+        index = DeptIndex.of(Communes.ALL, c -> c.postalCode, Communes::point);
+    }
+
+    @Benchmark
+    public List<Commune> filterThenSort() {
+        final List<Commune> filtered = Communes.ALL.stream()
+                .filter(Depts.limitroph("86").predicate(c -> c.postalCode))
+                .collect(Collectors.toList());
+        return Distances.<Commune>sorter(LAT, LON).sort(filtered, Communes::point);
+    }
+
+    @Benchmark
+    public List<Commune> index() {
+        return index.sort(Distances.<Commune>sorter(LAT, LON), Depts.limitroph("86"));
+    }
+
+    @Benchmark
+    public List<Commune> indexNearest() {
+        return index.nearest(Distances.<Commune>sorter(LAT, LON), Depts.limitroph("86"), 5);
+    }
+}
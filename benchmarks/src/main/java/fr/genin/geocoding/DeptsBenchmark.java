@@ -0,0 +1,32 @@
+package fr.genin.geocoding;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.*;
+
+/**
+ * Benchmarks of the french departments.
+ */
+@State(Scope.Thread)
+@BenchmarkMode({Mode.Throughput, Mode.AverageTime})
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class DeptsBenchmark {
+
+    private String[] postalCodes;
+    private int index = 0;
+
+    @Setup
+    public void setup() {
+        postalCodes = Communes.ALL.stream().map(c -> c.postalCode).toArray(String[]::new);
+    }
+
+    @Benchmark
+    public boolean matchPostalCode() {
+        final String postalCode = postalCodes[index];
+        index = (index + 1) % postalCodes.length;
+        return Depts.limitroph("86").matchPostalCode(postalCode);
+    }
+}
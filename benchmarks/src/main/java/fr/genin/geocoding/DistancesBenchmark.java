@@ -0,0 +1,45 @@
+package fr.genin.geocoding;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.*;
+
+/**
+ * Benchmarks of the distance between two points.
+ */
+@State(Scope.Thread)
+@BenchmarkMode({Mode.Throughput, Mode.AverageTime})
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class DistancesBenchmark {
+
+    private final Double lat1 = 46.348164;
+    private final Double lon1 = -0.387781;
+    private final Double lat2 = 46.580119;
+    private final Double lon2 = 0.340751;
+    private Point<String> pt1;
+    private Point<String> pt2;
+
+    @Setup
+    public void setup() {
+        pt1 = Point.builder("CHAURAY").lat(lat1).lon(lon1).build();
+        pt2 = Point.builder("POITIERS").lat(lat2).lon(lon2).build();
+    }
+
+    @Benchmark
+    public Distances.Distance betweenNumber() {
+        return Distances.between(lat1, lon1, lat2, lon2);
+    }
+
+    @Benchmark
+    public Distances.Distance betweenPoint() {
+        return Distances.between(pt1, pt2);
+    }
+
+    @Benchmark
+    public double milesBetween() {
+        return Distances.milesBetween(lat1, lon1, lat2, lon2);
+    }
+}
@@ -0,0 +1,49 @@
+package fr.genin.geocoding;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+import fr.genin.geocoding.Communes.Commune;
+import org.openjdk.jmh.annotations.*;
+
+/**
+ * Benchmarks of the distance formulas on all the communes.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class FormulaBenchmark {
+
+    private static final double LAT = 46.348164;
+    private static final double LON = -0.387781;
+
+    @Param({"LAW_OF_COSINES", "HAVERSINE", "EQUIRECTANGULAR", "VINCENTY"})
+    public Distances.Formula formula;
+
+    private List<Point<Commune>> points;
+    private Distances.Reference reference;
+
+    @Setup
+    public void setup() {
+        points = Communes.ALL.stream().map(Communes::point).collect(Collectors.toList());
+        reference = Distances.reference(LAT, LON, formula);
+    }
+
+    @Benchmark
+    public double milesTo() {
+        double sum = 0;
+        for (Point<Commune> pt : points) {
+            sum += reference.milesTo(pt.latValue(), pt.lonValue());
+        }
+        return sum;
+    }
+
+    @Benchmark
+    public List<Commune> sort() {
+        return Distances.<Commune>sorter(LAT, LON).formula(formula).sort(points);
+    }
+}
@@ -0,0 +1,53 @@
+package fr.genin.geocoding;
+
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+import fr.genin.geocoding.Communes.Commune;
+import org.openjdk.jmh.annotations.*;
+
+/**
+ * Benchmarks of the bulk kernels over the communes : exact, scalar polynomials and vectorized polynomials.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = "--add-modules=jdk.incubator.vector")
+public class KernelBenchmark {
+
+    private static final double LAT = 46.246992;
+    private static final double LON = 0.832142;
+
+    private PointSet<Commune> set;
+    private Distances.Reference reference;
+    private double[] out;
+    private final BulkKernel scalar = new BulkKernel.Scalar();
+
+    @Setup
+    public void setup() {
+        set = PointSet.of(Communes.ALL.stream().map(Communes::point).collect(Collectors.toList()));
+        reference = Distances.reference(LAT, LON);
+        out = new double[set.size()];
+    }
+
+    @Benchmark
+    public double[] exact() {
+        return reference.milesTo(set);
+    }
+
+    @Benchmark
+    public double[] scalar() {
+        scalar.distances(LAT, Math.cos(Math.toRadians(LAT)), LON, set.lats(), set.cosLats(), set.lons(),
+                Distances.MILES_PER_RADIAN, out, 0, out.length);
+        return out;
+    }
+
+    @Benchmark
+    public double[] kernel() {
+        BulkKernel.INSTANCE.distances(LAT, Math.cos(Math.toRadians(LAT)), LON, set.lats(), set.cosLats(), set.lons(),
+                Distances.MILES_PER_RADIAN, out, 0, out.length);
+        return out;
+    }
+}
@@ -0,0 +1,73 @@
+package fr.genin.geocoding;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+import fr.genin.geocoding.Utils.Splitter;
+import org.openjdk.jmh.annotations.*;
+
+/**
+ * Benchmarks of the loading of the communes csv.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode({Mode.Throughput, Mode.AverageTime})
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class LoaderBenchmark {
+
+    private Path path;
+
+    @Setup
+    public void setup() throws IOException {
+        path = Files.createTempFile("communes", ".csv");
+        try (InputStream input = LoaderBenchmark.class.getResourceAsStream(Communes.RESOURCE)) {
+            Files.copy(input, path, StandardCopyOption.REPLACE_EXISTING);
+        }
+    }
+
+    @TearDown
+    public void tearDown() throws IOException {
+        Files.deleteIfExists(path);
+    }
+
+    @Benchmark
+    public List<Point<String>> readAllLinesAndSplit() throws IOException {
+        final Splitter splitter = Splitter.on(';');
+        return Files.readAllLines(path).stream().skip(1).map(s -> {
+            final List<String> strings = splitter.splitToList(s);
+            final Point.Builder<String> builder = Point.builder(strings.get(8));
+            if (strings.size() >= 13) {
+                builder.lat(parse(strings.get(11))).lon(parse(strings.get(12)));
+            }
+            return builder.build();
+        }).collect(Collectors.toList());
+    }
+
+    @Benchmark
+    public List<Point<String>> geoCsv() throws IOException {
+        return GeoCsv.on(';').lat(11).lon(12).withHeader().<String>stream(path, row -> row.get(8))
+                .collect(Collectors.toList());
+    }
+
+    @Benchmark
+    public List<Point<String>> geoCsvParallel() throws IOException {
+        return GeoCsv.on(';').lat(11).lon(12).withHeader().<String>stream(path, row -> row.get(8)).parallel()
+                .collect(Collectors.toList());
+    }
+
+    private static Double parse(String s) {
+        try {
+            return Double.valueOf(s);
+        } catch (NumberFormatException nbe) {
+            return null;
+        }
+    }
+}
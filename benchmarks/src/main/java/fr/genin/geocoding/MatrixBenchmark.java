@@ -0,0 +1,50 @@
+package fr.genin.geocoding;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+import fr.genin.geocoding.Communes.Commune;
+import org.openjdk.jmh.annotations.*;
+
+/**
+ * Benchmarks of the distances from depots to all the communes.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class MatrixBenchmark {
+
+    @Param({"10", "100"})
+    public int depots;
+
+    private List<Point<Commune>> origins;
+    private List<Point<Commune>> destinations;
+
+    @Setup
+    public void setup() {
+        destinations = Communes.ALL.stream().map(Communes::point).collect(Collectors.toList());
+        origins = new ArrayList<>(depots);
+        for (int i = 0; i < depots; i++) {
+            origins.add(destinations.get(i * 97 % destinations.size()));
+        }
+    }
+
+    @Benchmark
+    public DistanceMatrix matrix() {
+        return Distances.matrix(origins, destinations, Distances.Unit.KILOMETERS);
+    }
+
+    @Benchmark
+    public List<List<Distances.Distance>> sorterDistances() {
+        final List<List<Distances.Distance>> rows = new ArrayList<>(origins.size());
+        for (Point<Commune> origin : origins) {
+            rows.add(Distances.<Commune>sorter(origin.latValue(), origin.lonValue()).distances(destinations));
+        }
+        return rows;
+    }
+}
@@ -0,0 +1,55 @@
+package fr.genin.geocoding;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import fr.genin.geocoding.Communes.Commune;
+import org.openjdk.jmh.annotations.*;
+
+/**
+ * Benchmarks of the sort pipeline of the Sorter, on the communes repeated up to the size.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class SortPipelineBenchmark {
+
+    private static final double LAT = 46.246992;
+    private static final double LON = 0.832142;
+
+    @Param({"1000", "36000", "1000000"})
+    public int size;
+
+    private List<Commune> communes;
+    private List<Point<Commune>> points;
+
+    @Setup
+    public void setup() {
+        communes = new ArrayList<>(size);
+        points = new ArrayList<>(size);
+        for (int i = 0; i < size; i++) {
+            final Commune commune = Communes.ALL.get(i % Communes.ALL.size());
+            communes.add(commune);
+            points.add(Communes.point(commune));
+        }
+    }
+
+    @Benchmark
+    public List<Commune> sortWithFunction() {
+        return Distances.<Commune>sorter(LAT, LON).sort(communes, Communes::point);
+    }
+
+    @Benchmark
+    public List<Commune> sortPoints() {
+        return Distances.<Commune>sorter(LAT, LON).sort(points);
+    }
+
+    @Benchmark
+    public List<Commune> sortPointsParallel() {
+        return Distances.<Commune>sorter(LAT, LON).parallel().sort(points);
+    }
+}
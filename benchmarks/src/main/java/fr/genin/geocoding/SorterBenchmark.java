@@ -0,0 +1,74 @@
+package fr.genin.geocoding;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+import fr.genin.geocoding.Communes.Commune;
+import org.openjdk.jmh.annotations.*;
+
+/**
+ * Benchmarks of the Sorter over the communes.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode({Mode.Throughput, Mode.AverageTime})
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class SorterBenchmark {
+
+    private static final double LAT = 46.246992;
+    private static final double LON = 0.832142;
+
+    private List<Commune> communes;
+    private List<Point<Commune>> points;
+    private PointSet<Commune> set;
+
+    @Setup
+    public void setup() {
+        communes = Communes.ALL;
+        points = communes.stream().map(Communes::point).collect(Collectors.toList());
+        set = PointSet.of(points);
+    }
+
+    @Benchmark
+    public List<Commune> sortPoints() {
+        return Distances.<Commune>sorter(LAT, LON).sort(points);
+    }
+
+    @Benchmark
+    public List<Commune> sortWithFunction() {
+        return Distances.<Commune>sorter(LAT, LON).sort(communes, Communes::point);
+    }
+
+    @Benchmark
+    public List<Commune> sortPointsFast() {
+        return Distances.<Commune>sorter(LAT, LON).precision(Distances.Precision.FAST).sort(points);
+    }
+
+    @Benchmark
+    public List<Commune> nearest() {
+        return Distances.<Commune>sorter(LAT, LON).nearest(points, 5);
+    }
+
+    @Benchmark
+    public List<Commune> sortSet() {
+        return Distances.<Commune>sorter(LAT, LON).sortSet(set);
+    }
+
+    @Benchmark
+    public List<Commune> sortSetFast() {
+        return Distances.<Commune>sorter(LAT, LON).precision(Distances.Precision.FAST).sortSet(set);
+    }
+
+    @Benchmark
+    public List<Distances.Distance> distances() {
+        return Distances.<Commune>sorter(LAT, LON).distances(points);
+    }
+
+    @Benchmark
+    public double[] milesOfSet() {
+        return Distances.reference(LAT, LON).milesTo(set);
+    }
+}
@@ -0,0 +1,35 @@
+package fr.genin.geocoding;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import fr.genin.geocoding.Utils.Splitter;
+import org.openjdk.jmh.annotations.*;
+
+/**
+ * Benchmarks of the Splitter over the lines of the communes.
+ */
+@State(Scope.Thread)
+@BenchmarkMode({Mode.Throughput, Mode.AverageTime})
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class SplitterBenchmark {
+
+    private final Splitter splitter = Splitter.on(';');
+    private String[] lines;
+    private int index = 0;
+
+    @Setup
+    public void setup() {
+        lines = Communes.LINES.toArray(new String[0]);
+    }
+
+    @Benchmark
+    public List<String> splitToList() {
+        final String line = lines[index];
+        index = (index + 1) % lines.length;
+        return splitter.splitToList(line);
+    }
+}
@@ -0,0 +1,57 @@
+package fr.genin.geocoding;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.*;
+
+/**
+ * Benchmarks of the nearest assets after each position update.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class TrackerBenchmark {
+
+    private static final double LAT = 46.246992;
+    private static final double LON = 0.832142;
+
+    @Param({"1000", "10000"})
+    public int assets;
+
+    private final Random random = new Random(17);
+    private List<Point<Integer>> positions;
+    private Distances.Tracker<Integer> tracker;
+
+    @Setup
+    public void setup() {
+        positions = new ArrayList<>(assets);
+        tracker = Distances.<Integer>sorter(LAT, LON).tracker();
+        for (int i = 0; i < assets; i++) {
+            positions.add(move(i));
+            tracker.put(positions.get(i));
+        }
+    }
+
+    private Point<Integer> move(int asset) {
+        return Point.builder(asset).lat(41 + random.nextDouble() * 10).lon(-5 + random.nextDouble() * 13).build();
+    }
+
+    @Benchmark
+    public List<Integer> resort() {
+        final int asset = random.nextInt(assets);
+        positions.set(asset, move(asset));
+        return Distances.<Integer>sorter(LAT, LON).nearest(positions, 10);
+    }
+
+    @Benchmark
+    public List<Integer> tracker() {
+        tracker.put(move(random.nextInt(assets)));
+        return tracker.top(10);
+    }
+}
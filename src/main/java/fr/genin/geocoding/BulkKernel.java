@@ -0,0 +1,65 @@
+package fr.genin.geocoding;
+
+/**
+ * Computes the distances of columnar points to an reference with the polynomials of {@link Trig}.
+ * <p>
+ * On Java 17 and later, the multi-release jar contains an implementation with the incubating Vector API, used when
+ * the module jdk.incubator.vector is added to the JVM (--add-modules jdk.incubator.vector). Otherwise, or with the
+ * system property {@value #DISABLE_VECTOR}=true, the scalar loop is used : it has no branch except in the arc sine,
+ * so the JIT can still unroll it.
+ */
+abstract class BulkKernel {
+
+    static final String DISABLE_VECTOR = "fr.genin.geocoding.disableVector";
+    private static final String VECTOR_KERNEL = "fr.genin.geocoding.VectorKernel";
+
+    /**
+     * The kernel of this JVM.
+     */
+    static final BulkKernel INSTANCE = load();
+
+    /**
+     * The distances in radians of an range of points to an reference, {@link Double#NaN} for the points without
+     * geo datas.
+     *
+     * @param refLat    the lattitude of the reference, in degrees.
+     * @param refCosLat the cosine of this lattitude.
+     * @param refLon    the longitude of the reference, in degrees.
+     * @param lats      the lattitudes of the points, in degrees.
+     * @param cosLats   the cosines of these lattitudes.
+     * @param lons      the longitudes of the points, in degrees.
+     * @param scale     the factor applied to the angles, to have an distance in an unit.
+     * @param out       the distances.
+     * @param from      the first point, inclusive.
+     * @param to        the last point, exclusive.
+     */
+    abstract void distances(double refLat, double refCosLat, double refLon, double[] lats, double[] cosLats, double[] lons,
+                            double scale, double[] out, int from, int to);
+
+    static BulkKernel load() {
+        if (!Boolean.getBoolean(DISABLE_VECTOR)) {
+            try {
+                final BulkKernel kernel = (BulkKernel) Class.forName(VECTOR_KERNEL).getDeclaredMethod("create").invoke(null);
+                if (kernel != null) {
+                    return kernel;
+                }
+            } catch (ReflectiveOperationException | LinkageError e) {
+                // Java 8 to 16, or the vector module is not added.
+            }
+        }
+        return new Scalar();
+    }
+
+    static final class Scalar extends BulkKernel {
+
+        @Override
+        void distances(double refLat, double refCosLat, double refLon, double[] lats, double[] cosLats, double[] lons,
+                       double scale, double[] out, int from, int to) {
+            final double doubleScale = 2 * scale;
+            for (int i = from; i < to; i++) {
+                final double haversine = Trig.haversine(refLat, refCosLat, refLon, lats[i], cosLats[i], lons[i]);
+                out[i] = Trig.asin(Math.sqrt(haversine)) * doubleScale;
+            }
+        }
+    }
+}
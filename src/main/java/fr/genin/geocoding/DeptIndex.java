@@ -0,0 +1,220 @@
+package fr.genin.geocoding;
+
+import java.util.*;
+import java.util.function.Function;
+
+import fr.genin.geocoding.Depts.Limitroph;
+import fr.genin.geocoding.Distances.Sorter;
+
+import static fr.genin.geocoding.Utils.firstNonNull;
+
+/**
+ * Immutable index of objects bucketed by french department, for the queries mixing the adjacency of the departments
+ * and the distances.
+ * <p>
+ * The department of an object is read from its postal code, as {@link Limitroph#matchPostalCode(String)} does. Each
+ * department is an columnar {@link PointSet}, so an query only scores the points of the selected departments instead
+ * of testing the postal code of every object. The objects with an unknown department are not indexed : no
+ * {@link Limitroph} matches them.
+ * <p>
+ * The results are the same as filtering the collection with {@link Limitroph#predicate(Function)} then sorting it with
+ * the {@link Sorter} : the ties keep the order of the collection.
+ *
+ * @param <T> the attached object.
+ */
+public final class DeptIndex<T> {
+
+    private final List<PointSet<T>> buckets;
+    /**
+     * The position in the source collection of each point of an bucket.
+     */
+    private final int[][] positions;
+    private final int size;
+
+    private DeptIndex(List<PointSet<T>> buckets, int[][] positions, int size) {
+        this.buckets = buckets;
+        this.positions = positions;
+        this.size = size;
+    }
+
+    /**
+     * Create an index of objects.
+     *
+     * @param collection         the objects.
+     * @param postalCodeFunction An function to get the postal code of an object.
+     * @param function           An function to tranform object to Point
+     * @param <T>                the attached object.
+     * @return the index.
+     */
+    @SuppressWarnings("unchecked")
+    public static <T> DeptIndex<T> of(Collection<T> collection, Function<T, String> postalCodeFunction,
+                                      Function<T, Point<T>> function) {
+        Objects.requireNonNull(postalCodeFunction);
+        Objects.requireNonNull(function);
+        final Object[] objects = firstNonNull(collection, Collections.<T>emptyList()).toArray();
+        final int count = Depts.count();
+        final int[] depts = new int[objects.length];
+        final int[] sizes = new int[count];
+        for (int i = 0; i < objects.length; i++) {
+            depts[i] = Depts.indexOfPostalCode(postalCodeFunction.apply((T) objects[i]));
+            if (depts[i] >= 0) {
+                sizes[depts[i]]++;
+            }
+        }
+
+        final List<PointSet.Builder<T>> builders = new ArrayList<>(count);
+        final int[][] positions = new int[count][];
+        for (int dept = 0; dept < count; dept++) {
+            builders.add(PointSet.builder(sizes[dept]));
+            positions[dept] = new int[sizes[dept]];
+        }
+        final int[] filled = new int[count];
+        int size = 0;
+        for (int i = 0; i < objects.length; i++) {
+            final int dept = depts[i];
+            if (dept < 0) {
+                continue;
+            }
+            builders.get(dept).add(function.apply((T) objects[i]));
+            positions[dept][filled[dept]++] = i;
+            size++;
+        }
+        final List<PointSet<T>> buckets = new ArrayList<>(count);
+        for (PointSet.Builder<T> builder : builders) {
+            buckets.add(builder.build());
+        }
+        return new DeptIndex<>(buckets, positions, size);
+    }
+
+    /**
+     * The number of indexed objects.
+     *
+     * @return the size.
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * The points of an department, in the order of the collection.
+     *
+     * @param dept the department, "2A" and "2B" are aliases of "20".
+     * @return the points, empty if the department is unknown.
+     */
+    public PointSet<T> points(String dept) {
+        final int index = Depts.limitroph(dept).index();
+        return (index < 0) ? PointSet.<T>builder(0).build() : buckets.get(index);
+    }
+
+    /**
+     * Sort the objects of an department and of its limitrophs.
+     *
+     * @param sorter    the sorter, with its reference and its options.
+     * @param limitroph the department.
+     * @return the sorting list.
+     */
+    public List<T> sort(Sorter<T> sorter, Limitroph limitroph) {
+        return sort(sorter, limitroph, 1);
+    }
+
+    /**
+     * Sort the objects of the departments at most hops from an department, see
+     * {@link Limitroph#matchPostalCode(String, int)}.
+     *
+     * @param sorter    the sorter, with its reference and its options.
+     * @param limitroph the department.
+     * @param hops      the maximum number of hops, 0 for the department only.
+     * @return the sorting list.
+     */
+    public List<T> sort(Sorter<T> sorter, Limitroph limitroph, int hops) {
+        Objects.requireNonNull(sorter);
+        Objects.requireNonNull(limitroph);
+        final Candidates candidates = new Candidates(sorter, limitroph.indexes(hops));
+        return candidates.datas(sorter.order(candidates::data, candidates.keys));
+    }
+
+    /**
+     * The k nearest objects of an department and of its limitrophs, in the order of the sorter.
+     * Only the k best objects are kept in an bounded heap, the candidates are never fully sorted.
+     *
+     * @param sorter    the sorter, with its reference and its options.
+     * @param limitroph the department.
+     * @param k         the number of objects.
+     * @return the first k objects of {@link #sort(Sorter, Limitroph)}.
+     */
+    public List<T> nearest(Sorter<T> sorter, Limitroph limitroph, int k) {
+        Objects.requireNonNull(sorter);
+        Objects.requireNonNull(limitroph);
+        if (k < 0) {
+            throw new IllegalArgumentException("The number of objects must be positive");
+        }
+        final Candidates candidates = new Candidates(sorter, limitroph.indexes(1));
+        return candidates.datas(sorter.select(candidates::data, candidates.keys, k));
+    }
+
+    /**
+     * The points of the selected buckets with their keys, side by side in the order of the collection : the stable
+     * sort of the sorter then keeps this order for the ties.
+     */
+    private final class Candidates {
+        private final Object[] datas;
+        private final double[] keys;
+
+        private Candidates(Sorter<T> sorter, BitSet depts) {
+            // merge of the buckets on their positions in the collection, each bucket is already in this order.
+            final PriorityQueue<Cursor> queue = new PriorityQueue<>(Math.max(1, depts.cardinality()),
+                    Comparator.comparingInt(Cursor::position));
+            int count = 0;
+            for (int dept = depts.nextSetBit(0); dept >= 0; dept = depts.nextSetBit(dept + 1)) {
+                final PointSet<T> bucket = buckets.get(dept);
+                if (!bucket.isEmpty()) {
+                    queue.add(new Cursor(bucket, sorter.keysOfSet(bucket), positions[dept]));
+                    count += bucket.size();
+                }
+            }
+            datas = new Object[count];
+            keys = new double[count];
+            for (int i = 0; i < count; i++) {
+                final Cursor cursor = queue.poll();
+                datas[i] = cursor.bucket.getData(cursor.index);
+                keys[i] = cursor.keys[cursor.index];
+                if (++cursor.index < cursor.positions.length) {
+                    queue.add(cursor);
+                }
+            }
+        }
+
+        @SuppressWarnings("unchecked")
+        private T data(int index) {
+            return (T) datas[index];
+        }
+
+        private List<T> datas(int[] order) {
+            final List<T> list = new ArrayList<>(order.length);
+            for (int index : order) {
+                list.add(data(index));
+            }
+            return list;
+        }
+    }
+
+    /**
+     * The next point of an bucket during the merge, keyed on its position in the collection.
+     */
+    private final class Cursor {
+        private final PointSet<T> bucket;
+        private final double[] keys;
+        private final int[] positions;
+        private int index;
+
+        private Cursor(PointSet<T> bucket, double[] keys, int[] positions) {
+            this.bucket = bucket;
+            this.keys = keys;
+            this.positions = positions;
+        }
+
+        private int position() {
+            return positions[index];
+        }
+    }
+}
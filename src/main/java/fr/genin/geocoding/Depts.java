@@ -1,96 +1,451 @@
 package fr.genin.geocoding;
 
 import java.io.IOException;
+import java.io.InputStream;
 import java.util.*;
 import java.util.function.Function;
 import java.util.function.Predicate;
 import fr.genin.geocoding.Utils.Splitter;
-import fr.genin.geocoding.Utils.CacheBuilder;
 
 /**
  * Classe d'utilitaire sur les départements français.
  */
 public final class Depts {
 
-    private static LimitrophBuilder builder;
+    private static final String RESOURCE = "/limitroph.properties";
 
     /**
-     * builder for creating the instance
+     * Chargement à la demande, sans verrou une fois la classe initialisée.
+     */
+    private static final class Holder {
+        private static final LimitrophBuilder BUILDER = load();
+    }
+
+    private static LimitrophBuilder builder() {
+        return Holder.BUILDER;
+    }
+
+    private static LimitrophBuilder load() {
+        try (InputStream input = Depts.class.getResourceAsStream(RESOURCE)) {
+            if (input == null) {
+                throw new IllegalStateException("Missing resource " + RESOURCE);
+            }
+            final Properties properties = new Properties();
+            properties.load(input);
+            return new LimitrophBuilder(properties);
+        } catch (IOException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    /**
+     * Charge et vérifie les données au démarrage de l'application plutôt qu'à la première requête.
+     * Chaque département doit être son propre limitrophe, et chaque limitrophe doit être connu et réciproque.
      *
-     * @return the instance.
+     * @throws IllegalStateException si les données sont incohérentes.
      */
-    private static synchronized LimitrophBuilder builder() {
-        return Optional.ofNullable(builder).orElseGet(() -> {
-            try {
-                final Properties properties = new Properties();
-                properties.load(Depts.class.getResourceAsStream("/limitroph.properties"));
-                builder = new LimitrophBuilder(properties);
-                return builder;
-            } catch (IOException e) {
-                throw new IllegalStateException(e);
-            }
-        });
+    public static void preload() {
+        final List<String> errors = builder().validate();
+        if (!errors.isEmpty()) {
+            throw new IllegalStateException("Invalid " + RESOURCE + " : " + errors);
+        }
+    }
+
+    /**
+     * Les incohérences d'un fichier de limitrophes, vide si aucune.
+     */
+    static List<String> validate(Properties properties) {
+        return new LimitrophBuilder(properties).validate();
     }
 
     /**
      * Permet de récupérer les départements limitrophes d'un autre à partir de son N°.
+     * Les instances sont partagées : "2A" et "2B" sont des alias de "20".
      *
      * @param noDept le nuémro.
      * @return les limitrophes.
      */
     public static Limitroph limitroph(String noDept) {
         Objects.requireNonNull(noDept);
-        return new Limitroph(builder(), noDept);
+        return builder().limitroph(noDept);
     }
 
     /**
-     * class
+     * Le nombre minimal de frontières à traverser pour aller d'un département à un autre.
+     *
+     * @param from le département de départ.
+     * @param to   le département d'arrivée.
+     * @return le nombre de sauts, 0 pour le même département, -1 si inconnu ou non relié.
+     */
+    public static int hops(String from, String to) {
+        Objects.requireNonNull(from);
+        Objects.requireNonNull(to);
+        return limitroph(from).hopsTo(to);
+    }
+
+    /**
+     * Les composantes connexes du graphe des départements : les départements reliés par des limitrophes.
+     * La Corse est seule dans la sienne.
+     *
+     * @return les composantes, chacune triée par code.
+     */
+    public static List<List<String>> components() {
+        return builder().components;
+    }
+
+    /**
+     * Le nombre de départements connus, les index de {@link #indexOfPostalCode(String)} sont dans [0, count()[.
+     */
+    static int count() {
+        return builder().codes.length;
+    }
+
+    /**
+     * L'index du département d'un code postal, sans allocation.
+     *
+     * @param postalCode le code postal.
+     * @return l'index, -1 si inconnu.
+     */
+    static int indexOfPostalCode(String postalCode) {
+        return (postalCode == null) ? LimitrophBuilder.NONE : builder().indexOfPostalCode(postalCode);
+    }
+
+    /**
+     * Le fichier limitroph.properties compilé au chargement : chaque département a un index, ses limitrophes sont
+     * un {@link BitSet} de ces index. Le nombre de sauts entre toutes les paires est calculé par des parcours en
+     * largeur.
      */
     private static class LimitrophBuilder {
         private static Splitter SPLIT_DEPT = Splitter.on(',').omitEmptyString();
+        private static final int NONE = -1;
+        private static final byte UNREACHABLE = Byte.MAX_VALUE;
+
+        /**
+         * Les codes des départements, par index.
+         */
+        private final String[] codes;
+        /**
+         * L'index d'un code de département, avec les alias.
+         */
+        private final Map<String, Integer> indexes = new HashMap<>();
+        /**
+         * L'index d'un préfixe de code postal métropolitain "00" à "99".
+         */
+        private final int[] byPrefix = new int[100];
+        /**
+         * L'index d'un préfixe de code postal d'outre-mer "970" à "979".
+         */
+        private final int[] byOverseasPrefix = new int[10];
+        private final BitSet[] neighbours;
+        /**
+         * Le nombre de sauts de i à j en [i * codes.length + j], {@link #UNREACHABLE} si non relié.
+         */
+        private final byte[] hops;
+        private final List<List<String>> components;
+        private final Limitroph[] limitrophs;
+        private final Limitroph unknown;
 
-        private final CacheBuilder<String, List<String>> cache = new CacheBuilder<>(
-                (dept)->{
-                    final String property = builder.limitroph.getProperty(dept, "");
-                    return LimitrophBuilder.SPLIT_DEPT.splitToList(property);
+        private LimitrophBuilder(Properties limitroph) {
+            final SortedSet<String> depts = new TreeSet<>();
+            for (String dept : limitroph.stringPropertyNames()) {
+                depts.add(dept.trim());
+                depts.addAll(SPLIT_DEPT.splitToList(limitroph.getProperty(dept)));
+            }
+            codes = depts.toArray(new String[depts.size()]);
+            Arrays.fill(byPrefix, NONE);
+            Arrays.fill(byOverseasPrefix, NONE);
+            for (int i = 0; i < codes.length; i++) {
+                indexes.put(codes[i], i);
+                final int prefix = prefix(codes[i]);
+                if (prefix >= 0 && prefix < byPrefix.length) {
+                    byPrefix[prefix] = i;
+                } else if (prefix >= 970 && prefix < 980) {
+                    byOverseasPrefix[prefix - 970] = i;
                 }
-        );
+            }
+            final Integer corse = indexes.get("20");
+            if (corse != null) {
+                indexes.put("2A", corse);
+                indexes.put("2B", corse);
+            }
 
+            neighbours = new BitSet[codes.length];
+            limitrophs = new Limitroph[codes.length];
+            for (int i = 0; i < codes.length; i++) {
+                final List<String> list = SPLIT_DEPT.splitToList(limitroph.getProperty(codes[i], ""));
+                neighbours[i] = new BitSet(codes.length);
+                for (String dept : list) {
+                    neighbours[i].set(indexes.get(dept));
+                }
+                limitrophs[i] = new Limitroph(this, i, Collections.unmodifiableList(list));
+            }
+            unknown = new Limitroph(this, NONE, Collections.<String>emptyList());
+            hops = allHops(neighbours);
+            components = components();
+        }
 
-        private final Properties limitroph;
+        /**
+         * Un parcours en largeur depuis chaque département.
+         */
+        private static byte[] allHops(BitSet[] neighbours) {
+            final int size = neighbours.length;
+            final byte[] hops = new byte[size * size];
+            Arrays.fill(hops, UNREACHABLE);
+            final int[] queue = new int[size];
+            for (int source = 0; source < size; source++) {
+                final int offset = source * size;
+                hops[offset + source] = 0;
+                int head = 0;
+                int tail = 0;
+                queue[tail++] = source;
+                while (head < tail) {
+                    final int current = queue[head++];
+                    final byte next = (byte) (hops[offset + current] + 1);
+                    final BitSet bits = neighbours[current];
+                    for (int i = bits.nextSetBit(0); i >= 0; i = bits.nextSetBit(i + 1)) {
+                        if (hops[offset + i] == UNREACHABLE) {
+                            hops[offset + i] = next;
+                            queue[tail++] = i;
+                        }
+                    }
+                }
+            }
+            return hops;
+        }
 
-        private LimitrophBuilder(Properties limitroph) {
-            this.limitroph = limitroph;
+        /**
+         * Les composantes, en considérant les limitrophes dans les deux sens.
+         */
+        private List<List<String>> components() {
+            final int size = codes.length;
+            final int[] component = new int[size];
+            Arrays.fill(component, NONE);
+            final List<List<String>> list = new ArrayList<>();
+            for (int source = 0; source < size; source++) {
+                if (component[source] != NONE) {
+                    continue;
+                }
+                final List<String> members = new ArrayList<>();
+                final Deque<Integer> stack = new ArrayDeque<>();
+                stack.push(source);
+                component[source] = list.size();
+                while (!stack.isEmpty()) {
+                    final int current = stack.pop();
+                    members.add(codes[current]);
+                    for (int other = 0; other < size; other++) {
+                        final boolean linked = hops[current * size + other] == 1 || hops[other * size + current] == 1;
+                        if (linked && component[other] == NONE) {
+                            component[other] = list.size();
+                            stack.push(other);
+                        }
+                    }
+                }
+                Collections.sort(members);
+                list.add(Collections.unmodifiableList(members));
+            }
+            return Collections.unmodifiableList(list);
+        }
+
+        /**
+         * Les incohérences des données.
+         */
+        private List<String> validate() {
+            final List<String> errors = new ArrayList<>();
+            for (int i = 0; i < codes.length; i++) {
+                if (limitrophs[i].list().isEmpty()) {
+                    errors.add(codes[i] + " is not a key");
+                    continue;
+                }
+                if (!neighbours[i].get(i)) {
+                    errors.add(codes[i] + " is not its own neighbour");
+                }
+                for (int j = neighbours[i].nextSetBit(0); j >= 0; j = neighbours[i].nextSetBit(j + 1)) {
+                    if (!neighbours[j].get(i)) {
+                        errors.add(codes[j] + " is a neighbour of " + codes[i] + " but not the reverse");
+                    }
+                }
+            }
+            return errors;
+        }
+
+        private int hops(int from, int to) {
+            final byte value = hops[from * codes.length + to];
+            return (value == UNREACHABLE) ? NONE : value;
+        }
+
+        private Limitroph limitroph(String dept) {
+            final Integer index = indexes.get(dept.trim().toUpperCase(Locale.ROOT));
+            return (index == null) ? unknown : limitrophs[index];
+        }
+
+        /**
+         * Le préfixe numérique d'un code : 2 chiffres, ou 3 pour l'outre-mer (97x), -1 si ce n'est pas un code.
+         */
+        private static int prefix(CharSequence code) {
+            if (code.length() < 2) {
+                return NONE;
+            }
+            final int tens = digit(code.charAt(0));
+            final int units = digit(code.charAt(1));
+            if (tens < 0 || units < 0) {
+                return NONE;
+            }
+            final int prefix = tens * 10 + units;
+            if (prefix == 97 && code.length() >= 3 && digit(code.charAt(2)) >= 0) {
+                return 970 + digit(code.charAt(2));
+            }
+            return prefix;
+        }
+
+        private static int digit(char c) {
+            return (c >= '0' && c <= '9') ? c - '0' : NONE;
+        }
+
+        /**
+         * L'index du département d'un code postal, sans allocation.
+         */
+        private int indexOfPostalCode(String postalCode) {
+            final int prefix = prefix(postalCode);
+            if (prefix == NONE) {
+                return NONE;
+            }
+            return (prefix < byPrefix.length) ? byPrefix[prefix] : byOverseasPrefix[prefix - 970];
         }
     }
 
     public static class Limitroph {
 
         private final LimitrophBuilder builder;
-        private final String dept;
+        private final int index;
+        private final List<String> list;
 
-        private Limitroph(LimitrophBuilder builder, String dept) {
+        private Limitroph(LimitrophBuilder builder, int index, List<String> list) {
             this.builder = builder;
-            this.dept = dept;
+            this.index = index;
+            this.list = list;
         }
 
         /**
          * La liste des départements limitrophe.
          *
-         * @return la liste
+         * @return la liste, non modifiable.
          */
         public List<String> list() {
-            return builder.cache.get(dept);
+            return list;
         }
 
         /**
          * Permet de savoir si le code postal apprtient au départements ou à un département limitrophe.
+         * Le département est extrait du début du code postal (3 chiffres pour l'outre-mer), puis cherché dans le
+         * {@link BitSet} des limitrophes.
          *
          * @param postalCode le code postal
          * @return true si limitrophe ou false dans les autres cas.
          */
         public boolean matchPostalCode(String postalCode) {
-            return postalCode != null && list().stream().anyMatch(postalCode::startsWith);
+            if (postalCode == null || index == LimitrophBuilder.NONE) {
+                return false;
+            }
+            final int dept = builder.indexOfPostalCode(postalCode);
+            return dept != LimitrophBuilder.NONE && builder.neighbours[index].get(dept);
+        }
+
+        /**
+         * Permet de savoir si le code postal appartient à un département à au plus hops sauts de ce département.
+         * La réponse est lue dans la table des sauts précalculée.
+         *
+         * @param postalCode le code postal
+         * @param hops       le nombre maximal de sauts, 1 pour {@link #matchPostalCode(String)}.
+         * @return true si assez proche ou false dans les autres cas.
+         */
+        public boolean matchPostalCode(String postalCode, int hops) {
+            if (postalCode == null || index == LimitrophBuilder.NONE) {
+                return false;
+            }
+            final int dept = builder.indexOfPostalCode(postalCode);
+            if (dept == LimitrophBuilder.NONE) {
+                return false;
+            }
+            final int value = builder.hops(index, dept);
+            return value != LimitrophBuilder.NONE && value <= hops;
+        }
+
+        /**
+         * Les départements à exactement hops sauts : 0 pour le département lui-même, 1 pour ses limitrophes, etc.
+         *
+         * @param hops le nombre de sauts.
+         * @return les départements, triés par code.
+         */
+        public List<String> ring(int hops) {
+            return select(hops, hops);
+        }
+
+        /**
+         * Les départements à au plus hops sauts, le département compris.
+         *
+         * @param hops le nombre maximal de sauts.
+         * @return les départements, triés par code.
+         */
+        public List<String> within(int hops) {
+            return select(0, hops);
+        }
+
+        private List<String> select(int min, int max) {
+            if (index == LimitrophBuilder.NONE || max < 0) {
+                return Collections.emptyList();
+            }
+            final List<String> selected = new ArrayList<>();
+            for (int other = 0; other < builder.codes.length; other++) {
+                final int value = builder.hops(index, other);
+                if (value != LimitrophBuilder.NONE && value >= min && value <= max) {
+                    selected.add(builder.codes[other]);
+                }
+            }
+            return selected;
+        }
+
+        /**
+         * L'index de ce département, -1 si inconnu.
+         */
+        int index() {
+            return index;
+        }
+
+        /**
+         * Les index des départements à au plus hops sauts, ceux que {@link #matchPostalCode(String, int)} accepte.
+         *
+         * @param hops le nombre maximal de sauts.
+         * @return un nouveau {@link BitSet}.
+         */
+        BitSet indexes(int hops) {
+            if (index == LimitrophBuilder.NONE || hops < 0) {
+                return new BitSet();
+            }
+            if (hops == 1) {
+                return (BitSet) builder.neighbours[index].clone();
+            }
+            final BitSet selected = new BitSet(builder.codes.length);
+            for (int other = 0; other < builder.codes.length; other++) {
+                final int value = builder.hops(index, other);
+                if (value != LimitrophBuilder.NONE && value <= hops) {
+                    selected.set(other);
+                }
+            }
+            return selected;
+        }
+
+        /**
+         * Le nombre minimal de frontières à traverser jusqu'à un autre département.
+         *
+         * @param dept le département.
+         * @return le nombre de sauts, -1 si inconnu ou non relié.
+         */
+        public int hopsTo(String dept) {
+            final Limitroph other = builder.limitroph(Objects.requireNonNull(dept));
+            if (index == LimitrophBuilder.NONE || other.index == LimitrophBuilder.NONE) {
+                return LimitrophBuilder.NONE;
+            }
+            return builder.hops(index, other.index);
         }
 
         /**
@@ -111,5 +466,18 @@ public final class Depts {
             Objects.requireNonNull(postalCodeFunction);
             return (t) -> matchPostalCode(postalCodeFunction.apply(t));
         }
+
+        /**
+         * Permet de créer un prédicat pour les départements à au plus hops sauts.
+         *
+         * @param hops               le nombre maximal de sauts.
+         * @param postalCodeFunction Un fonction de transformation
+         * @param <T>                le type d'objet attendu.
+         * @return le prédicat.
+         */
+        public <T> Predicate<T> predicate(int hops, Function<T, String> postalCodeFunction) {
+            Objects.requireNonNull(postalCodeFunction);
+            return (t) -> matchPostalCode(postalCodeFunction.apply(t), hops);
+        }
     }
 }
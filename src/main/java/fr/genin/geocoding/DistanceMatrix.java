@@ -0,0 +1,205 @@
+package fr.genin.geocoding;
+
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Objects;
+import java.util.concurrent.ForkJoinPool;
+
+import fr.genin.geocoding.Distances.Unit;
+import fr.genin.geocoding.Utils.Doubles;
+import fr.genin.geocoding.Utils.Indexes;
+
+/**
+ * Dense matrix of the distances from N origins to M destinations, stored in an row-major double array.
+ * <p>
+ * The distances are great circle distances on the sphere of {@link Distances}, computed from the chord between unit
+ * vectors : each point is converted once to an unit vector (x, y, z), and the central angle of an cell is
+ * 2 * atan(sqrt(c² / (4 - c²))), with c² the squared chord. This is 2 * asin(c / 2) written with an atan, which is
+ * several times faster than acos or asin. As the haversine, it stays precise for the close points, where the acos of
+ * {@link Distances.Formula#LAW_OF_COSINES} loses digits ; near the antipodes, 4 - c² loses digits as the acos does.
+ * The columns are read by tiles which stay in the cache while an block of rows goes over them, and the blocks of rows
+ * are computed in parallel. An distance to an point without geo datas is {@link Double#NaN}.
+ */
+public final class DistanceMatrix {
+
+    /**
+     * The number of cells from which the rows are computed in parallel.
+     */
+    static final int PARALLEL_THRESHOLD = 1 << 16;
+    private static final int ROW_BLOCK = 32;
+    private static final int COLUMN_TILE = 512;
+
+    private final int rows;
+    private final int columns;
+    private final Unit unit;
+    private final double[] values;
+
+    private DistanceMatrix(int rows, int columns, Unit unit, double[] values) {
+        this.rows = rows;
+        this.columns = columns;
+        this.unit = unit;
+        this.values = values;
+    }
+
+    static DistanceMatrix of(Collection<? extends Point<?>> origins, Collection<? extends Point<?>> destinations, Unit unit,
+                             ForkJoinPool pool) {
+        return compute(Vectors.of(origins), Vectors.of(destinations), unit, pool);
+    }
+
+    static DistanceMatrix of(PointSet<?> origins, PointSet<?> destinations, Unit unit, ForkJoinPool pool) {
+        return compute(Vectors.of(origins), Vectors.of(destinations), unit, pool);
+    }
+
+    private static DistanceMatrix compute(Vectors origins, Vectors destinations, Unit unit, ForkJoinPool pool) {
+        Objects.requireNonNull(unit);
+        Objects.requireNonNull(pool);
+        final int rows = origins.size;
+        final int columns = destinations.size;
+        if ((long) rows * columns > Integer.MAX_VALUE - 8) {
+            throw new IllegalArgumentException("Too many cells : " + rows + " x " + columns);
+        }
+        final double[] values = new double[rows * columns];
+        final double scale = Distances.MILES_PER_RADIAN * unit.ofMiles(1.0);
+        final int blocks = (rows + ROW_BLOCK - 1) / ROW_BLOCK;
+        if ((long) rows * columns < PARALLEL_THRESHOLD) {
+            for (int block = 0; block < blocks; block++) {
+                computeBlock(origins, destinations, scale, values, block);
+            }
+        } else {
+            Indexes.forEach(pool, blocks, 1, block -> computeBlock(origins, destinations, scale, values, block));
+        }
+        return new DistanceMatrix(rows, columns, unit, values);
+    }
+
+    private static void computeBlock(Vectors origins, Vectors destinations, double scale, double[] values, int block) {
+        final int columns = destinations.size;
+        final int rowFrom = block * ROW_BLOCK;
+        final int rowTo = Math.min(origins.size, rowFrom + ROW_BLOCK);
+        final double[] xs = destinations.xs;
+        final double[] ys = destinations.ys;
+        final double[] zs = destinations.zs;
+        for (int tileFrom = 0; tileFrom < columns; tileFrom += COLUMN_TILE) {
+            final int tileTo = Math.min(columns, tileFrom + COLUMN_TILE);
+            for (int row = rowFrom; row < rowTo; row++) {
+                final double x = origins.xs[row];
+                final double y = origins.ys[row];
+                final double z = origins.zs[row];
+                final int offset = row * columns;
+                for (int column = tileFrom; column < tileTo; column++) {
+                    final double dx = x - xs[column];
+                    final double dy = y - ys[column];
+                    final double dz = z - zs[column];
+                    final double chord2 = dx * dx + dy * dy + dz * dz;
+                    values[offset + column] = 2 * Math.atan(Math.sqrt(chord2 / Math.max(0.0, 4 - chord2))) * scale;
+                }
+            }
+        }
+    }
+
+    /**
+     * The number of origins.
+     *
+     * @return the number of rows.
+     */
+    public int rows() {
+        return rows;
+    }
+
+    /**
+     * The number of destinations.
+     *
+     * @return the number of columns.
+     */
+    public int columns() {
+        return columns;
+    }
+
+    public Unit getUnit() {
+        return unit;
+    }
+
+    /**
+     * The distance from an origin to an destination.
+     *
+     * @param row    the position of the origin.
+     * @param column the position of the destination.
+     * @return the distance, {@link Double#NaN} if one of the points has no geo datas.
+     */
+    public double get(int row, int column) {
+        checkIndex(row, rows);
+        checkIndex(column, columns);
+        return values[row * columns + column];
+    }
+
+    /**
+     * The distances from an origin to all the destinations.
+     *
+     * @param row the position of the origin.
+     * @return an copy of the row.
+     */
+    public double[] row(int row) {
+        checkIndex(row, rows);
+        return Arrays.copyOfRange(values, row * columns, (row + 1) * columns);
+    }
+
+    /**
+     * The backing row-major array : the distance from the origin i to the destination j is at i * columns() + j.
+     * The array is not copied and must not be modified.
+     *
+     * @return the values.
+     */
+    public double[] values() {
+        return values;
+    }
+
+    private static void checkIndex(int index, int length) {
+        if (index < 0 || index >= length) {
+            throw new IndexOutOfBoundsException("Index " + index + " out of bounds for length " + length);
+        }
+    }
+
+    /**
+     * The unit vectors of an list of points, by coordinate.
+     */
+    private static final class Vectors {
+        private final int size;
+        private final double[] xs;
+        private final double[] ys;
+        private final double[] zs;
+
+        private Vectors(int size) {
+            this.size = size;
+            this.xs = new double[size];
+            this.ys = new double[size];
+            this.zs = new double[size];
+        }
+
+        private static Vectors of(Collection<? extends Point<?>> points) {
+            final Vectors vectors = new Vectors(Objects.requireNonNull(points).size());
+            int i = 0;
+            for (Point<?> pt : points) {
+                final double latRad = Doubles.deg2rad(pt.latValue());
+                vectors.set(i++, Math.sin(latRad), Math.cos(latRad), pt.lonValue());
+            }
+            return vectors;
+        }
+
+        private static Vectors of(PointSet<?> set) {
+            final Vectors vectors = new Vectors(set.size());
+            final double[] sinLats = set.sinLats();
+            final double[] cosLats = set.cosLats();
+            final double[] lons = set.lons();
+            for (int i = 0; i < vectors.size; i++) {
+                vectors.set(i, sinLats[i], cosLats[i], lons[i]);
+            }
+            return vectors;
+        }
+
+        private void set(int i, double sinLat, double cosLat, double lon) {
+            final double lonRad = Doubles.deg2rad(lon);
+            xs[i] = cosLat * Math.cos(lonRad);
+            ys[i] = cosLat * Math.sin(lonRad);
+            zs[i] = sinLat;
+        }
+    }
+}
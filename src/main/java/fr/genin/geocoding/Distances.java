@@ -2,11 +2,18 @@ package fr.genin.geocoding;
 
 
 import java.util.*;
+import java.util.concurrent.ForkJoinPool;
 import java.util.function.Function;
+import java.util.function.IntBinaryOperator;
+import java.util.function.IntConsumer;
+import java.util.function.IntFunction;
+import java.util.function.Predicate;
+import java.util.function.ToDoubleFunction;
+import java.util.stream.Collector;
 import java.util.stream.Collectors;
 
-import fr.genin.geocoding.Utils.CacheBuilder;
 import fr.genin.geocoding.Utils.Doubles;
+import fr.genin.geocoding.Utils.Indexes;
 
 import static fr.genin.geocoding.Utils.firstNonNull;
 
@@ -15,9 +22,12 @@ import static fr.genin.geocoding.Utils.firstNonNull;
  */
 public final class Distances {
 
-    private static final Double DEG2MILES = 60.0 * 1.1515;
-    static final Double MILES2NAUTIC = 0.8684;
-    static final Double MILES2KM = 1.609344;
+    static final double DEG2MILES = 60.0 * 1.1515;
+    static final double MILES_PER_RADIAN = Doubles.rad2deg(1.0) * DEG2MILES;
+    static final double MILES2NAUTIC = 0.8684;
+    static final double MILES2KM = 1.609344;
+    private static final double WGS84_A = 6378137.0;
+    private static final double WGS84_F = 1 / 298.257223563;
 
 
     /**
@@ -28,6 +38,19 @@ public final class Distances {
      * @return the sorter instance.
      */
     private static <T> Sorter<T> sorter(Point<T> reference) {
+        Objects.requireNonNull(reference);
+        return new Sorter<>(reference.isEmpty() ? null : new Reference(reference.latValue(), reference.lonValue()));
+    }
+
+    /**
+     * create an sorter instance which reuse an precomputed reference point.
+     *
+     * @param reference The reference point
+     * @param <T>       the target object
+     * @return the sorter instance.
+     */
+    public static <T> Sorter<T> sorter(Reference reference) {
+        Objects.requireNonNull(reference);
         return new Sorter<>(reference);
     }
 
@@ -44,6 +67,61 @@ public final class Distances {
         return sorter(Point.<T>builderRef().lat(refLat).lon(refLon).build());
     }
 
+    /**
+     * create an reference point to score many points against the same origin.
+     *
+     * @param refLat lattitude
+     * @param refLon longitude
+     * @return the reference.
+     */
+    public static Reference reference(double refLat, double refLon) {
+        return new Reference(refLat, refLon);
+    }
+
+    /**
+     * create an reference point using an specific distance formula.
+     *
+     * @param refLat  lattitude
+     * @param refLon  longitude
+     * @param formula the formula.
+     * @return the reference.
+     */
+    public static Reference reference(double refLat, double refLon, Formula formula) {
+        Objects.requireNonNull(formula);
+        return new Reference(refLat, refLon, formula);
+    }
+
+    /**
+     * create an filter keeping the points within an radius of an reference point.
+     * Exemple :
+     * <code>
+     * List&lt;Commune&gt; list = communes.stream()
+     * .filter(Distances.withinKm(46.58, 0.34, 30)
+     * .predicate(c -&gt; Point.builder(c).lat(c.getLatitude()).lon(c.getLongitude()).build()))
+     * .collect(Collectors.toList());
+     * </code>
+     *
+     * @param refLat lattitude
+     * @param refLon longitude
+     * @param radius the radius in kilometers.
+     * @return the filter.
+     */
+    public static Radius withinKm(double refLat, double refLon, double radius) {
+        return withinMiles(refLat, refLon, radius / MILES2KM);
+    }
+
+    /**
+     * create an filter keeping the points within an radius of an reference point.
+     *
+     * @param refLat lattitude
+     * @param refLon longitude
+     * @param radius the radius in miles.
+     * @return the filter.
+     */
+    public static Radius withinMiles(double refLat, double refLon, double radius) {
+        return new Radius(new Reference(refLat, refLon), radius);
+    }
+
     /**
      * Get the distance between Two Points.
      *
@@ -56,12 +134,24 @@ public final class Distances {
         if (pt1.isEmpty() || pt2.isEmpty()) {
             return new Distance();
         }
-        return between(
-                pt1.getLat().orElseThrow(() -> new IllegalArgumentException("The first point must have geo Datas")),
-                pt1.getLon().orElseThrow(() -> new IllegalArgumentException("The first point must have geo Datas")),
-                pt2.getLat().orElseThrow(() -> new IllegalArgumentException("The second point must have geo Datas")),
-                pt2.getLon().orElseThrow(() -> new IllegalArgumentException("The second point must have geo Datas"))
-        );
+        return new Distance(milesBetween(pt1.latValue(), pt1.lonValue(), pt2.latValue(), pt2.lonValue()));
+    }
+
+    /**
+     * Get the distance between Two Points with an specific formula.
+     *
+     * @param pt1     first point.
+     * @param pt2     second points
+     * @param formula the formula.
+     * @param <T>     the object
+     * @return the distance.
+     */
+    public static <T> Distance between(Point<T> pt1, Point<T> pt2, Formula formula) {
+        Objects.requireNonNull(formula);
+        if (pt1.isEmpty() || pt2.isEmpty()) {
+            return new Distance();
+        }
+        return new Distance(formula.milesBetween(pt1.latValue(), pt1.lonValue(), pt2.latValue(), pt2.lonValue()));
     }
 
     /**
@@ -77,21 +167,76 @@ public final class Distances {
         if (lat1 == null || lon1 == null || lat2 == null || lon2 == null) {
             return new Distance();
         }
-        return between(lat1.doubleValue(), lon1.doubleValue(), lat2.doubleValue(), lon2.doubleValue());
+        return new Distance(milesBetween(lat1.doubleValue(), lon1.doubleValue(), lat2.doubleValue(), lon2.doubleValue()));
     }
 
-    private static Distance between(Double lat1, Double lon1, Double lat2, Double lon2) {
-        Objects.requireNonNull(lat1);
-        Objects.requireNonNull(lon1);
-        Objects.requireNonNull(lat2);
-        Objects.requireNonNull(lon2);
-        final Double theta = lon1 - lon2;
-        final Double dist = Math.sin(Doubles.deg2rad(lat1)) * Math.sin(Doubles.deg2rad(lat2))
+    /**
+     * Get the distance in miles between two coordinates, without any allocation.
+     *
+     * @param lat1 lattitude for the first point.
+     * @param lon1 longitude for the first point
+     * @param lat2 lattitude for the second point
+     * @param lon2 longitude for the second point
+     * @return the distance in miles.
+     */
+    public static double milesBetween(double lat1, double lon1, double lat2, double lon2) {
+        final double theta = lon1 - lon2;
+        final double dist = Math.sin(Doubles.deg2rad(lat1)) * Math.sin(Doubles.deg2rad(lat2))
                 + (Math.cos(Doubles.deg2rad(lat1)) * (Math.cos(Doubles.deg2rad(lat2)) * (Math.cos(Doubles.deg2rad(theta)))));
-        final Double distAcos = Math.acos(dist);
-        final Double distDeg = Doubles.rad2deg(distAcos);
-        final Double miles = distDeg * DEG2MILES;
-        return new Distance(miles);
+        return Doubles.rad2deg(Math.acos(Doubles.clamp(dist))) * DEG2MILES;
+    }
+
+    /**
+     * Get the distance in miles between two coordinates with an precision, without any allocation.
+     *
+     * @param lat1      lattitude for the first point.
+     * @param lon1      longitude for the first point
+     * @param lat2      lattitude for the second point
+     * @param lon2      longitude for the second point
+     * @param precision the precision.
+     * @return the distance in miles.
+     */
+    public static double milesBetween(double lat1, double lon1, double lat2, double lon2, Precision precision) {
+        if (Objects.requireNonNull(precision) == Precision.EXACT) {
+            return milesBetween(lat1, lon1, lat2, lon2);
+        }
+        return Trig.angle(Trig.haversine(lat1, Trig.cosLat(lat1), lon1, lat2, Trig.cosLat(lat2), lon2)) * MILES_PER_RADIAN;
+    }
+
+    /**
+     * Convert an distance in miles to the central angle on the sphere.
+     *
+     * @param miles the distance in miles.
+     * @return the angle in radians.
+     */
+    static double milesToRadians(double miles) {
+        return Doubles.deg2rad(miles / DEG2MILES);
+    }
+
+    /**
+     * Get the distance in kilometers between two coordinates, without any allocation.
+     *
+     * @param lat1 lattitude for the first point.
+     * @param lon1 longitude for the first point
+     * @param lat2 lattitude for the second point
+     * @param lon2 longitude for the second point
+     * @return the distance in kilometers.
+     */
+    public static double kilometerBetween(double lat1, double lon1, double lat2, double lon2) {
+        return milesBetween(lat1, lon1, lat2, lon2) * MILES2KM;
+    }
+
+    /**
+     * Get the distance in nautical miles between two coordinates, without any allocation.
+     *
+     * @param lat1 lattitude for the first point.
+     * @param lon1 longitude for the first point
+     * @param lat2 lattitude for the second point
+     * @param lon2 longitude for the second point
+     * @return the distance in nautical miles.
+     */
+    public static double nauticBetween(double lat1, double lon1, double lat2, double lon2) {
+        return milesBetween(lat1, lon1, lat2, lon2) * MILES2NAUTIC;
     }
 
     /**
@@ -126,6 +271,16 @@ public final class Distances {
             return Optional.ofNullable(lon);
         }
 
+        @Override
+        public double latValue() {
+            return (lat == null) ? Double.NaN : lat;
+        }
+
+        @Override
+        public double lonValue() {
+            return (lon == null) ? Double.NaN : lon;
+        }
+
         @Override
         public boolean isPresent() {
             return !Objects.isNull(lat) && !Objects.isNull(lon);
@@ -187,19 +342,30 @@ public final class Distances {
 
     public static class Distance implements Comparable<Distance> {
 
-        private final Double miles;
+        /**
+         * The distance in miles, {@link Double#NaN} if unknown.
+         */
+        private final double miles;
 
-        private Distance(Double miles) {
+        private Distance(double miles) {
             this.miles = miles;
         }
 
         Distance() {
-            this(null);
+            this(Double.NaN);
         }
 
+        /**
+         * True if the distance could be calculated.
+         *
+         * @return true or false otherwise.
+         */
+        public boolean isPresent() {
+            return !Double.isNaN(miles);
+        }
 
         public Optional<Double> miles() {
-            return Optional.ofNullable(miles);
+            return isPresent() ? Optional.of(miles) : Optional.empty();
         }
 
         public Optional<Double> kilometer() {
@@ -211,174 +377,1649 @@ public final class Distances {
             return miles().map(m -> m * MILES2NAUTIC);
         }
 
+        /**
+         * The distance in miles.
+         *
+         * @return the value or {@link Double#NaN} if not present.
+         */
+        public double milesValue() {
+            return miles;
+        }
+
+        /**
+         * The distance in kilometers.
+         *
+         * @return the value or {@link Double#NaN} if not present.
+         */
+        public double kilometerValue() {
+            return miles * MILES2KM;
+        }
+
+        /**
+         * The distance in nautical miles.
+         *
+         * @return the value or {@link Double#NaN} if not present.
+         */
+        public double nauticValue() {
+            return miles * MILES2NAUTIC;
+        }
+
         @Override
         public int compareTo(Distance o) {
-            if (Objects.isNull(this.miles)) {
-                if (!o.miles().isPresent()) {
+            if (!isPresent()) {
+                if (!o.isPresent()) {
                     return 0;
                 }
                 return -1;
             } else {
-                if (Objects.isNull(o.miles)) {
+                if (!o.isPresent()) {
                     return 1;
                 }
 
             }
-            return this.miles.compareTo(o.miles);
+            return Double.compare(this.miles, o.miles);
         }
     }
 
 
-    private enum NullSorting {
-        NULLS_LAST(1, -1),
-        NULLS_FIRST(-1, 1);
-        private final int first;
-        private final int second;
+    /**
+     * The distances from each origin to each destination, see {@link DistanceMatrix}.
+     * The rows are computed in parallel in the common pool for the large matrices.
+     *
+     * @param origins      the origins, the rows.
+     * @param destinations the destinations, the columns.
+     * @param unit         the unit of the distances.
+     * @return the matrix.
+     */
+    public static DistanceMatrix matrix(Collection<? extends Point<?>> origins, Collection<? extends Point<?>> destinations, Unit unit) {
+        return DistanceMatrix.of(origins, destinations, unit, ForkJoinPool.commonPool());
+    }
 
-        NullSorting(int first, int second) {
-            this.first = first;
-            this.second = second;
-        }
+    /**
+     * The distances from each origin to each destination, the rows are computed in the given pool.
+     *
+     * @param origins      the origins, the rows.
+     * @param destinations the destinations, the columns.
+     * @param unit         the unit of the distances.
+     * @param pool         the pool.
+     * @return the matrix.
+     */
+    public static DistanceMatrix matrix(Collection<? extends Point<?>> origins, Collection<? extends Point<?>> destinations, Unit unit,
+                                        ForkJoinPool pool) {
+        return DistanceMatrix.of(origins, destinations, unit, pool);
     }
 
     /**
-     * Sorter
+     * The distances from each point of an set to each point of an other one.
      *
-     * @param <T> the object which contains geo datas.
+     * @param origins      the origins, the rows.
+     * @param destinations the destinations, the columns.
+     * @param unit         the unit of the distances.
+     * @return the matrix.
      */
-    public static class Sorter<T> {
+    public static DistanceMatrix matrix(PointSet<?> origins, PointSet<?> destinations, Unit unit) {
+        return DistanceMatrix.of(Objects.requireNonNull(origins), Objects.requireNonNull(destinations), unit,
+                ForkJoinPool.commonPool());
+    }
 
-        private final Point<T> ref;
-        private boolean desc = false;
-        private Comparator<Point<T>> subComparatorOfPoints = (o1, o2) -> 0;
-        private NullSorting nullSorting = NullSorting.NULLS_LAST;
+    /**
+     * The units of an distance.
+     */
+    public enum Unit {
+        MILES(1.0),
+        KILOMETERS(MILES2KM),
+        NAUTIC(MILES2NAUTIC);
+
+        private final double perMile;
 
-        private Sorter(Point<T> ref) {
-            Objects.requireNonNull(ref);
-            this.ref = ref;
+        Unit(double perMile) {
+            this.perMile = perMile;
         }
 
         /**
-         * Sorting ascendant way the point
+         * Convert an distance in miles to this unit.
          *
-         * @return the build instance.
+         * @param miles the distance in miles.
+         * @return the distance in this unit.
          */
-        public Sorter<T> asc() {
-            desc = false;
-            return this;
+        public double ofMiles(double miles) {
+            return miles * perMile;
         }
+    }
 
+    /**
+     * The precision of the trigonometry of the spherical formulas.
+     */
+    public enum Precision {
         /**
-         * Sorting descendant way the point
-         *
-         * @return the build instance.
+         * The functions of {@link Math}.
          */
-        public Sorter<T> desc() {
-            desc = true;
-            return this;
+        EXACT(0.0),
+        /**
+         * The haversine with the polynomials of {@link Trig} : no call to {@link Math#sin}, {@link Math#cos} nor
+         * {@link Math#acos}. Only {@link Formula#LAW_OF_COSINES} and {@link Formula#HAVERSINE} are approximated, the
+         * other formulas stay exact.
+         */
+        FAST(Trig.MAX_ERROR_METRES);
+
+        private final double maxErrorMetres;
+
+        Precision(double maxErrorMetres) {
+            this.maxErrorMetres = maxErrorMetres;
         }
 
         /**
-         * The null values must be at last.
+         * The maximum difference between an distance of this precision and the exact haversine.
          *
-         * @return the instance
+         * @return the error in metres.
          */
-        public Sorter<T> nullsLast() {
-            nullSorting = NullSorting.NULLS_LAST;
-            return this;
+        public double maxErrorMetres() {
+            return maxErrorMetres;
         }
+    }
 
+    /**
+     * The formulas to compute an distance.
+     */
+    public enum Formula {
         /**
-         * the null values must be first.
-         *
-         * @return the instance.
+         * The spherical law of cosines, the historical formula of this library.
+         * Fast, but it loses precision for the points closer than a few meters.
          */
-        public Sorter<T> nullsFirst() {
-            nullSorting = NullSorting.NULLS_FIRST;
-            return this;
+        LAW_OF_COSINES {
+            @Override
+            double key(Reference ref, double lat, double lon) {
+                final double latRad = Doubles.deg2rad(lat);
+                final double dist = ref.sinLat * Math.sin(latRad)
+                        + (ref.cosLat * (Math.cos(latRad) * (Math.cos(Doubles.deg2rad(ref.lon - lon)))));
+                return -Doubles.clamp(dist);
+            }
+
+            @Override
+            void keys(Reference ref, PointSet<?> set, double[] keys, int from, int to) {
+                final double[] sinLats = set.sinLats();
+                final double[] cosLats = set.cosLats();
+                final double[] lons = set.lons();
+                for (int i = from; i < to; i++) {
+                    final double dist = ref.sinLat * sinLats[i]
+                            + (ref.cosLat * (cosLats[i] * (Math.cos(Doubles.deg2rad(ref.lon - lons[i])))));
+                    keys[i] = -Doubles.clamp(dist);
+                }
+            }
+
+            @Override
+            double milesOfKey(double key) {
+                return Doubles.rad2deg(Math.acos(-key)) * DEG2MILES;
+            }
+        },
+        /**
+         * The haversine formula, on the same sphere than {@link #LAW_OF_COSINES}, numerically stable at short distances.
+         */
+        HAVERSINE {
+            @Override
+            double key(Reference ref, double lat, double lon) {
+                final double latRad = Doubles.deg2rad(lat);
+                final double sinDeltaLat = Math.sin((latRad - ref.latRad) / 2);
+                final double sinDeltaLon = Math.sin(Doubles.deg2rad(lon - ref.lon) / 2);
+                final double a = sinDeltaLat * sinDeltaLat + ref.cosLat * Math.cos(latRad) * sinDeltaLon * sinDeltaLon;
+                return Math.min(1.0, a);
+            }
+
+            @Override
+            double milesOfKey(double key) {
+                return Doubles.rad2deg(2 * Math.asin(Math.sqrt(key))) * DEG2MILES;
+            }
+        },
+        /**
+         * The equirectangular projection : the sphere is flattened around the mean lattitude.
+         * Only one cosine per point, good for sorting at the scale of a region, wrong for long distances.
+         */
+        EQUIRECTANGULAR {
+            @Override
+            double key(Reference ref, double lat, double lon) {
+                final double latRad = Doubles.deg2rad(lat);
+                double deltaLon = lon - ref.lon;
+                if (deltaLon > 180) {
+                    deltaLon -= 360;
+                } else if (deltaLon < -180) {
+                    deltaLon += 360;
+                }
+                final double x = Doubles.deg2rad(deltaLon) * Math.cos((latRad + ref.latRad) / 2);
+                final double y = latRad - ref.latRad;
+                return x * x + y * y;
+            }
+
+            @Override
+            double milesOfKey(double key) {
+                return Doubles.rad2deg(Math.sqrt(key)) * DEG2MILES;
+            }
+        },
+        /**
+         * The Vincenty inverse formula on the WGS-84 ellipsoid, accurate to the millimeter but iterative.
+         * The nearly antipodal points which do not converge fall back on {@link #HAVERSINE}.
+         */
+        VINCENTY {
+            private static final double A = WGS84_A;
+            private static final double F = WGS84_F;
+            private static final double B = (1 - F) * A;
+            private static final double METERS2MILES = 1 / 1609.344;
+            private static final int MAX_ITERATIONS = 200;
+
+            @Override
+            double key(Reference ref, double lat, double lon) {
+                final double l = Doubles.deg2rad(lon - ref.lon);
+                final double u2 = Math.atan((1 - F) * Math.tan(Doubles.deg2rad(lat)));
+                final double sinU2 = Math.sin(u2);
+                final double cosU2 = Math.cos(u2);
+                final double sinU1 = ref.sinReducedLat;
+                final double cosU1 = ref.cosReducedLat;
+
+                double lambda = l;
+                double previous;
+                double sinSigma;
+                double cosSigma;
+                double sigma;
+                double cosSqAlpha;
+                double cos2SigmaM;
+                int iterations = 0;
+                do {
+                    final double sinLambda = Math.sin(lambda);
+                    final double cosLambda = Math.cos(lambda);
+                    final double cross = cosU1 * sinU2 - sinU1 * cosU2 * cosLambda;
+                    sinSigma = Math.sqrt((cosU2 * sinLambda) * (cosU2 * sinLambda) + cross * cross);
+                    if (sinSigma == 0) {
+                        return 0;
+                    }
+                    cosSigma = sinU1 * sinU2 + cosU1 * cosU2 * cosLambda;
+                    sigma = Math.atan2(sinSigma, cosSigma);
+                    final double sinAlpha = cosU1 * cosU2 * sinLambda / sinSigma;
+                    cosSqAlpha = 1 - sinAlpha * sinAlpha;
+                    cos2SigmaM = (cosSqAlpha == 0) ? 0 : cosSigma - 2 * sinU1 * sinU2 / cosSqAlpha;
+                    final double c = F / 16 * cosSqAlpha * (4 + F * (4 - 3 * cosSqAlpha));
+                    previous = lambda;
+                    lambda = l + (1 - c) * F * sinAlpha
+                            * (sigma + c * sinSigma * (cos2SigmaM + c * cosSigma * (-1 + 2 * cos2SigmaM * cos2SigmaM)));
+                } while (Math.abs(lambda - previous) > 1e-12 && ++iterations < MAX_ITERATIONS);
+                if (iterations >= MAX_ITERATIONS) {
+                    return HAVERSINE.miles(ref, lat, lon);
+                }
+
+                final double uSq = cosSqAlpha * (A * A - B * B) / (B * B);
+                final double a = 1 + uSq / 16384 * (4096 + uSq * (-768 + uSq * (320 - 175 * uSq)));
+                final double b = uSq / 1024 * (256 + uSq * (-128 + uSq * (74 - 47 * uSq)));
+                final double deltaSigma = b * sinSigma * (cos2SigmaM + b / 4 * (cosSigma * (-1 + 2 * cos2SigmaM * cos2SigmaM)
+                        - b / 6 * cos2SigmaM * (-3 + 4 * sinSigma * sinSigma) * (-3 + 4 * cos2SigmaM * cos2SigmaM)));
+                return B * a * (sigma - deltaSigma) * METERS2MILES;
+            }
+
+            @Override
+            double milesOfKey(double key) {
+                return key;
+            }
+        };
+
+        /**
+         * An key growing with the distance from the reference, cheaper than the distance : enough for sorting.
+         */
+        abstract double key(Reference reference, double lat, double lon);
+
+        /**
+         * Convert an key to the distance in miles.
+         */
+        abstract double milesOfKey(double key);
+
+        /**
+         * True for the formulas on the sphere, which the {@link Precision#FAST} precision approximates.
+         */
+        boolean isSpherical() {
+            return this == LAW_OF_COSINES || this == HAVERSINE;
         }
 
         /**
-         * For adding subcmparaison if point has the same coordinates.
-         *
-         * @param comparator the comparator.
-         * @return the instance.
+         * The keys of an range of points of an set.
          */
-        public Sorter<T> withSubComparatorOfPoints(Comparator<T> comparator) {
-            Objects.requireNonNull(comparator);
-            subComparatorOfPoints = (pt1, pt2) -> comparator.compare(pt1.getData(), pt2.getData());
-            return this;
+        void keys(Reference reference, PointSet<?> set, double[] keys, int from, int to) {
+            final double[] lats = set.lats();
+            final double[] lons = set.lons();
+            for (int i = from; i < to; i++) {
+                keys[i] = key(reference, lats[i], lons[i]);
+            }
         }
 
         /**
-         * Sort an collection of objects.
-         *
-         * @param collection the collection.
-         * @param function   An function to tranform object to Point
-         * @return the sorting list.
+         * The distance in miles from the reference.
          */
-        public List<T> sort(Collection<T> collection, Function<T, Point<T>> function) {
-            Objects.requireNonNull(collection);
-            Objects.requireNonNull(function);
-            return sort(collection.parallelStream().map(function).collect(Collectors.toSet()));
+        double miles(Reference reference, double lat, double lon) {
+            return milesOfKey(key(reference, lat, lon));
         }
 
         /**
-         * Sort an collection of Points
+         * Get the distance in miles between two coordinates.
          *
-         * @param collection the collection.
-         * @return the sorting list.
+         * @param lat1 lattitude for the first point.
+         * @param lon1 longitude for the first point
+         * @param lat2 lattitude for the second point
+         * @param lon2 longitude for the second point
+         * @return the distance in miles.
          */
-        public List<T> sort(Collection<Point<T>> collection) {
-            return sortPoints(collection).parallelStream().map(Point::getData).collect(Collectors.toList());
+        public double milesBetween(double lat1, double lon1, double lat2, double lon2) {
+            return miles(new Reference(lat1, lon1, this), lat2, lon2);
         }
+    }
 
-        private List<Point<T>> sortPoints(Collection<Point<T>> collection) {
-            if (collection == null || collection.isEmpty()) {
-                return Collections.emptyList();
-            }
+    /**
+     * An reference point whose radians, sine and cosine are computed once.
+     * With the default formula, scoring a point against it costs one sin, one cos and one cos of the longitude delta.
+     */
+    public static final class Reference {
+        private final double lat;
+        private final double lon;
+        private final Formula formula;
+        private final Precision precision;
+        /**
+         * True if the keys are computed with the polynomials of {@link Trig}.
+         */
+        private final boolean fast;
+        private final double latRad;
+        private final double sinLat;
+        private final double cosLat;
+        private final double sinReducedLat;
+        private final double cosReducedLat;
+
+        private Reference(double lat, double lon) {
+            this(lat, lon, Formula.LAW_OF_COSINES);
+        }
+
+        private Reference(double lat, double lon, Formula formula) {
+            this(lat, lon, formula, Precision.EXACT);
+        }
+
+        private Reference(double lat, double lon, Formula formula, Precision precision) {
+            this.lat = lat;
+            this.lon = lon;
+            this.formula = formula;
+            this.precision = precision;
+            this.fast = precision == Precision.FAST && formula.isSpherical();
+            this.latRad = Doubles.deg2rad(lat);
+            this.sinLat = Math.sin(latRad);
+            this.cosLat = Math.cos(latRad);
+            final double reducedLat = (formula == Formula.VINCENTY) ? Math.atan((1 - WGS84_F) * Math.tan(latRad)) : latRad;
+            this.sinReducedLat = Math.sin(reducedLat);
+            this.cosReducedLat = Math.cos(reducedLat);
+        }
+
+        public double getLat() {
+            return lat;
+        }
+
+        public double getLon() {
+            return lon;
+        }
+
+        public Formula getFormula() {
+            return formula;
+        }
 
-            return collection.stream().sorted(getComparatorPoints()).collect(Collectors.toList());
+        public Precision getPrecision() {
+            return precision;
         }
 
         /**
-         * The list of distance for an List of points.
+         * The same reference point with an other formula.
          *
-         * @param collection the list.
-         * @return the list of Distance.
+         * @param formula the formula.
+         * @return the reference.
          */
-        public List<Distance> distances(List<Point<T>> collection) {
-            return firstNonNull(collection, Collections.<Point<T>>emptyList()).stream()
-                    .map(p -> between(ref, p)).collect(Collectors.toList());
+        public Reference with(Formula formula) {
+            Objects.requireNonNull(formula);
+            return (formula == this.formula) ? this : new Reference(lat, lon, formula, precision);
         }
 
-        Comparator<Point<T>> getComparatorPoints() {
-            if (ref.isEmpty()) {
-                return subComparatorOfPoints;
+        /**
+         * The same reference point with an other precision.
+         *
+         * @param precision the precision.
+         * @return the reference.
+         */
+        public Reference with(Precision precision) {
+            Objects.requireNonNull(precision);
+            return (precision == this.precision) ? this : new Reference(lat, lon, formula, precision);
+        }
+
+        /**
+         * The distance in miles to an coordinate, without any allocation.
+         *
+         * @param lat lattitude
+         * @param lon longitude
+         * @return the distance in miles.
+         */
+        public double milesTo(double lat, double lon) {
+            if (fast) {
+                return milesOfKey(keyTo(lat, lon));
             }
-            final CacheBuilder<Point<T>, Distance> cache = new CacheBuilder<>(pt -> between(ref, pt));
-            return (pt1, pt2) -> {
+            return formula.miles(this, lat, lon);
+        }
 
-                if (pt1.isEmpty() && pt2.isEmpty()) {
-                    return subComparatorOfPoints.compare(pt1, pt2);
-                }
-                if (pt1.isEmpty()) {
-                    return nullSorting.first;
+        /**
+         * An key growing with the distance, see {@link Formula#key(Reference, double, double)}.
+         * With the {@link Precision#FAST} precision, the key is the haversine of {@link Trig}.
+         */
+        double keyTo(double lat, double lon) {
+            if (fast) {
+                return Trig.haversine(this.lat, cosLat, this.lon, lat, Trig.cosLat(lat), lon);
+            }
+            return formula.key(this, lat, lon);
+        }
+
+        /**
+         * The keys of all the points of an set.
+         */
+        double[] keysTo(PointSet<?> set) {
+            final double[] keys = new double[set.size()];
+            keysTo(set, keys, 0, keys.length);
+            return keys;
+        }
+
+        /**
+         * The keys of an range of points of an set.
+         */
+        void keysTo(PointSet<?> set, double[] keys, int from, int to) {
+            if (!fast) {
+                formula.keys(this, set, keys, from, to);
+                return;
+            }
+            final double[] lats = set.lats();
+            final double[] cosLats = set.cosLats();
+            final double[] lons = set.lons();
+            for (int i = from; i < to; i++) {
+                keys[i] = Trig.haversine(lat, cosLat, lon, lats[i], cosLats[i], lons[i]);
+            }
+        }
+
+        /**
+         * The distances in miles of all the points of an set.
+         *
+         * @param set the points.
+         * @return the distances in miles, {@link Double#NaN} for the points without geo datas.
+         */
+        public double[] milesTo(PointSet<?> set) {
+            Objects.requireNonNull(set);
+            if (fast) {
+                return fastMilesTo(set);
+            }
+            final double[] miles = keysTo(set);
+            for (int i = 0; i < miles.length; i++) {
+                miles[i] = formula.milesOfKey(miles[i]);
+            }
+            return miles;
+        }
+
+        /**
+         * The distances in miles of all the points of an set, with the polynomial haversine of {@link BulkKernel}.
+         * The loop is vectorized on Java 17 when the module jdk.incubator.vector is added. The distances differ from
+         * the exact haversine by less than {@value Trig#MAX_ERROR_METRES} metre, whatever the formula of this reference.
+         * It is the {@link #milesTo(PointSet)} of the {@link Precision#FAST} precision.
+         *
+         * @param set the points.
+         * @return the distances in miles, {@link Double#NaN} for the points without geo datas.
+         */
+        public double[] fastMilesTo(PointSet<?> set) {
+            final double[] miles = new double[set.size()];
+            BulkKernel.INSTANCE.distances(lat, cosLat, lon, set.lats(), set.cosLats(), set.lons(), MILES_PER_RADIAN,
+                    miles, 0, miles.length);
+            return miles;
+        }
+
+        /**
+         * Convert an key returned by {@link #keyTo(double, double)} to the distance in miles.
+         */
+        double milesOfKey(double key) {
+            if (fast) {
+                return Trig.angle(key) * MILES_PER_RADIAN;
+            }
+            return formula.milesOfKey(key);
+        }
+
+        /**
+         * The distance in kilometers to an coordinate, without any allocation.
+         *
+         * @param lat lattitude
+         * @param lon longitude
+         * @return the distance in kilometers.
+         */
+        public double kilometerTo(double lat, double lon) {
+            return milesTo(lat, lon) * MILES2KM;
+        }
+
+        /**
+         * The distance in nautical miles to an coordinate, without any allocation.
+         *
+         * @param lat lattitude
+         * @param lon longitude
+         * @return the distance in nautical miles.
+         */
+        public double nauticTo(double lat, double lon) {
+            return milesTo(lat, lon) * MILES2NAUTIC;
+        }
+
+        /**
+         * The distance to an point.
+         *
+         * @param pt the point.
+         * @return the distance, not present if the point has no geo datas.
+         */
+        public Distance distanceTo(Point<?> pt) {
+            if (pt == null || pt.isEmpty()) {
+                return new Distance();
+            }
+            return new Distance(milesTo(pt.latValue(), pt.lonValue()));
+        }
+
+        /**
+         * The distances in miles for an batch of coordinates.
+         *
+         * @param lats the lattitudes.
+         * @param lons the longitudes, same length as lats.
+         * @return the distances in miles, in the same order.
+         */
+        public double[] milesTo(double[] lats, double[] lons) {
+            Objects.requireNonNull(lats);
+            Objects.requireNonNull(lons);
+            if (lats.length != lons.length) {
+                throw new IllegalArgumentException("lattitudes and longitudes must have the same length");
+            }
+            final double[] miles = new double[lats.length];
+            for (int i = 0; i < miles.length; i++) {
+                miles[i] = milesTo(lats[i], lons[i]);
+            }
+            return miles;
+        }
+
+        /**
+         * The distances for an batch of points.
+         *
+         * @param collection the points.
+         * @return the distances, in the iteration order.
+         */
+        public List<Distance> distances(Collection<? extends Point<?>> collection) {
+            if (collection == null || collection.isEmpty()) {
+                return Collections.emptyList();
+            }
+            final List<Distance> distances = new ArrayList<>(collection.size());
+            for (Point<?> pt : collection) {
+                distances.add(distanceTo(pt));
+            }
+            return distances;
+        }
+    }
+
+    /**
+     * An point found by an query, with its distance to the reference.
+     *
+     * @param <T> the attached object.
+     */
+    public static final class Neighbour<T> {
+        private final Point<T> point;
+        private final Reference reference;
+        private final double key;
+        private Distance distance;
+
+        Neighbour(Point<T> point, double miles) {
+            this.point = point;
+            this.reference = null;
+            this.key = miles;
+            this.distance = new Distance(miles);
+        }
+
+        /**
+         * An neighbour whose distance is converted from the sorting key only when asked.
+         */
+        Neighbour(Point<T> point, Reference reference, double key) {
+            this.point = point;
+            this.reference = reference;
+            this.key = key;
+        }
+
+        public Point<T> getPoint() {
+            return point;
+        }
+
+        public T getData() {
+            return point.getData();
+        }
+
+        public Distance getDistance() {
+            if (distance == null) {
+                distance = (reference == null || Double.isNaN(key)) ? new Distance() : new Distance(reference.milesOfKey(key));
+            }
+            return distance;
+        }
+    }
+
+    /**
+     * An lattitude / longitude rectangle.
+     * If minLon is greater than maxLon, the box crosses the antimeridian.
+     */
+    public static final class BoundingBox {
+        /**
+         * Slack in degrees so that an point on the circle is never rejected because of rounding.
+         */
+        private static final double EPSILON = 1e-9;
+
+        private final double minLat;
+        private final double minLon;
+        private final double maxLat;
+        private final double maxLon;
+
+        private BoundingBox(double minLat, double minLon, double maxLat, double maxLon) {
+            this.minLat = minLat;
+            this.minLon = minLon;
+            this.maxLat = maxLat;
+            this.maxLon = maxLon;
+        }
+
+        /**
+         * Create an box from its corners.
+         *
+         * @param minLat the south lattitude.
+         * @param minLon the west longitude.
+         * @param maxLat the north lattitude.
+         * @param maxLon the east longitude, lower than minLon if the box crosses the antimeridian.
+         * @return the box.
+         */
+        public static BoundingBox of(double minLat, double minLon, double maxLat, double maxLon) {
+            if (minLat > maxLat) {
+                throw new IllegalArgumentException("The south lattitude must be lower than the north lattitude");
+            }
+            return new BoundingBox(minLat, minLon, maxLat, maxLon);
+        }
+
+        /**
+         * The smallest box containing the circle around an point.
+         *
+         * @param lat    lattitude of the center.
+         * @param lon    longitude of the center.
+         * @param radius the radius in kilometers.
+         * @return the box.
+         */
+        public static BoundingBox aroundKm(double lat, double lon, double radius) {
+            return aroundMiles(lat, lon, radius / MILES2KM);
+        }
+
+        /**
+         * The smallest box containing the circle around an point.
+         *
+         * @param lat    lattitude of the center.
+         * @param lon    longitude of the center.
+         * @param radius the radius in miles.
+         * @return the box.
+         */
+        public static BoundingBox aroundMiles(double lat, double lon, double radius) {
+            final double angle = milesToRadians(Math.max(0, radius));
+            final double delta = Doubles.rad2deg(angle) + EPSILON;
+            final double minLat = lat - delta;
+            final double maxLat = lat + delta;
+            if (minLat <= -90 || maxLat >= 90 || angle >= Math.PI / 2) {
+                return new BoundingBox(Math.max(-90, minLat), -180, Math.min(90, maxLat), 180);
+            }
+            final double sinDelta = Math.sin(angle) / Math.cos(Doubles.deg2rad(lat));
+            if (sinDelta >= 1) {
+                return new BoundingBox(minLat, -180, maxLat, 180);
+            }
+            final double deltaLon = Doubles.rad2deg(Math.asin(sinDelta)) + EPSILON;
+            if (deltaLon >= 180) {
+                return new BoundingBox(minLat, -180, maxLat, 180);
+            }
+            return new BoundingBox(minLat, normalize(lon - deltaLon), maxLat, normalize(lon + deltaLon));
+        }
+
+        private static double normalize(double lon) {
+            if (lon < -180) {
+                return lon + 360;
+            }
+            if (lon > 180) {
+                return lon - 360;
+            }
+            return lon;
+        }
+
+        public double getMinLat() {
+            return minLat;
+        }
+
+        public double getMinLon() {
+            return minLon;
+        }
+
+        public double getMaxLat() {
+            return maxLat;
+        }
+
+        public double getMaxLon() {
+            return maxLon;
+        }
+
+        /**
+         * True if the box crosses the antimeridian.
+         *
+         * @return true or false otherwise.
+         */
+        public boolean crossesAntimeridian() {
+            return minLon > maxLon;
+        }
+
+        /**
+         * True if the coordinate is in the box.
+         *
+         * @param lat lattitude
+         * @param lon longitude
+         * @return true or false otherwise.
+         */
+        public boolean contains(double lat, double lon) {
+            if (lat < minLat || lat > maxLat) {
+                return false;
+            }
+            if (crossesAntimeridian()) {
+                return lon >= minLon || lon <= maxLon;
+            }
+            return lon >= minLon && lon <= maxLon;
+        }
+
+        /**
+         * True if the point is in the box.
+         *
+         * @param pt the point
+         * @return true or false if the point is outside or has no geo datas.
+         */
+        public boolean contains(Point<?> pt) {
+            return pt != null && pt.isPresent() && contains(pt.latValue(), pt.lonValue());
+        }
+    }
+
+    /**
+     * Filter on the distance to an reference point.
+     * The coordinates outside of the bounding box of the circle are rejected without any trigonometry.
+     */
+    public static final class Radius implements Predicate<Point<?>> {
+        private final Reference reference;
+        private final BoundingBox box;
+        private final double miles;
+
+        private Radius(Reference reference, double miles) {
+            this.reference = reference;
+            this.box = BoundingBox.aroundMiles(reference.getLat(), reference.getLon(), miles);
+            this.miles = miles;
+        }
+
+        /**
+         * True if the coordinate is within the radius.
+         *
+         * @param lat lattitude
+         * @param lon longitude
+         * @return true or false otherwise.
+         */
+        public boolean test(double lat, double lon) {
+            return box.contains(lat, lon) && reference.milesTo(lat, lon) <= miles;
+        }
+
+        /**
+         * True if the point is within the radius.
+         *
+         * @param pt the point.
+         * @return true or false if the point is outside or has no geo datas.
+         */
+        @Override
+        public boolean test(Point<?> pt) {
+            return pt != null && pt.isPresent() && test(pt.latValue(), pt.lonValue());
+        }
+
+        /**
+         * Create an predicate on objects, to use in {@link java.util.stream.Stream#filter(Predicate)}.
+         *
+         * @param function An function to tranform object to Point
+         * @param <T>      the type of the objects.
+         * @return the predicate.
+         */
+        public <T> Predicate<T> predicate(Function<T, Point<T>> function) {
+            Objects.requireNonNull(function);
+            return (t) -> test(function.apply(t));
+        }
+
+        /**
+         * Create an predicate reading the coordinates without building points.
+         * An {@link Double#NaN} coordinate is considered as missing.
+         *
+         * @param lat the lattitude of an object.
+         * @param lon the longitude of an object.
+         * @param <T> the type of the objects.
+         * @return the predicate.
+         */
+        public <T> Predicate<T> predicate(ToDoubleFunction<T> lat, ToDoubleFunction<T> lon) {
+            Objects.requireNonNull(lat);
+            Objects.requireNonNull(lon);
+            return (t) -> test(lat.applyAsDouble(t), lon.applyAsDouble(t));
+        }
+
+        /**
+         * An collector keeping the objects within the radius.
+         *
+         * @param function An function to tranform object to Point
+         * @param <T>      the type of the objects.
+         * @return the collector.
+         */
+        public <T> Collector<T, ?, List<T>> collector(Function<T, Point<T>> function) {
+            final Predicate<T> predicate = predicate(function);
+            return Collector.of(
+                    ArrayList::new,
+                    (list, t) -> {
+                        if (predicate.test(t)) {
+                            list.add(t);
+                        }
+                    },
+                    (l1, l2) -> {
+                        l1.addAll(l2);
+                        return l1;
+                    });
+        }
+    }
+
+    private enum NullSorting {
+        NULLS_LAST(1, -1),
+        NULLS_FIRST(-1, 1);
+        private final int first;
+        private final int second;
+
+        NullSorting(int first, int second) {
+            this.first = first;
+            this.second = second;
+        }
+    }
+
+    /**
+     * Sorter
+     *
+     * @param <T> the object which contains geo datas.
+     */
+    public static class Sorter<T> {
+
+        /**
+         * The number of objects from which an collection is mapped in parallel.
+         */
+        static final int PARALLEL_THRESHOLD = 1 << 13;
+
+        /**
+         * The reference, null if the reference point has no geo datas.
+         */
+        private Reference reference;
+        private boolean desc = false;
+        private Comparator<T> subComparator = (o1, o2) -> 0;
+        private NullSorting nullSorting = NullSorting.NULLS_LAST;
+        /**
+         * The pool of the parallel sorts, null for the sequential sorts.
+         */
+        private ForkJoinPool pool;
+        private int parallelThreshold = PARALLEL_THRESHOLD;
+
+        private Sorter(Reference reference) {
+            this.reference = reference;
+        }
+
+        /**
+         * Sorting ascendant way the point
+         *
+         * @return the build instance.
+         */
+        public Sorter<T> asc() {
+            desc = false;
+            return this;
+        }
+
+        /**
+         * Sorting descendant way the point
+         *
+         * @return the build instance.
+         */
+        public Sorter<T> desc() {
+            desc = true;
+            return this;
+        }
+
+        /**
+         * The null values must be at last.
+         *
+         * @return the instance
+         */
+        public Sorter<T> nullsLast() {
+            nullSorting = NullSorting.NULLS_LAST;
+            return this;
+        }
+
+        /**
+         * the null values must be first.
+         *
+         * @return the instance.
+         */
+        public Sorter<T> nullsFirst() {
+            nullSorting = NullSorting.NULLS_FIRST;
+            return this;
+        }
+
+        /**
+         * Change the formula used to compute the distances.
+         *
+         * @param formula the formula.
+         * @return the instance.
+         */
+        public Sorter<T> formula(Formula formula) {
+            Objects.requireNonNull(formula);
+            if (reference != null) {
+                reference = reference.with(formula);
+            }
+            return this;
+        }
+
+        /**
+         * Change the precision of the trigonometry, see {@link Precision}.
+         *
+         * @param precision the precision.
+         * @return the instance.
+         */
+        public Sorter<T> precision(Precision precision) {
+            Objects.requireNonNull(precision);
+            if (reference != null) {
+                reference = reference.with(precision);
+            }
+            return this;
+        }
+
+        /**
+         * Sort in parallel in the common pool, from {@link #PARALLEL_THRESHOLD} points.
+         *
+         * @return the instance.
+         */
+        public Sorter<T> parallel() {
+            return parallel(ForkJoinPool.commonPool(), PARALLEL_THRESHOLD);
+        }
+
+        /**
+         * Sort in parallel in an pool : the objects are mapped, the keys computed and the positions merge sorted by
+         * chunks of threshold points. The collections smaller than threshold are sorted in the caller thread.
+         * The comparator of {@link #withSubComparatorOfPoints(Comparator)} is then called from the threads of the pool.
+         *
+         * @param pool      the pool.
+         * @param threshold the size of the chunks.
+         * @return the instance.
+         */
+        public Sorter<T> parallel(ForkJoinPool pool, int threshold) {
+            Objects.requireNonNull(pool);
+            if (threshold < 1) {
+                throw new IllegalArgumentException("The threshold must be positive");
+            }
+            this.pool = pool;
+            this.parallelThreshold = threshold;
+            return this;
+        }
+
+        /**
+         * For adding subcmparaison if point has the same coordinates.
+         *
+         * @param comparator the comparator.
+         * @return the instance.
+         */
+        public Sorter<T> withSubComparatorOfPoints(Comparator<T> comparator) {
+            Objects.requireNonNull(comparator);
+            subComparator = comparator;
+            return this;
+        }
+
+        /**
+         * An incremental ranking of points with the options of this sorter, for points moving one by one.
+         * The options are copied : changing this sorter afterwards does not change the tracker.
+         *
+         * @return an empty tracker.
+         */
+        public Tracker<T> tracker() {
+            final Sorter<T> copy = new Sorter<>(reference);
+            copy.desc = desc;
+            copy.subComparator = subComparator;
+            copy.nullSorting = nullSorting;
+            return new Tracker<>(copy);
+        }
+
+        /**
+         * Sort an collection of objects.
+         *
+         * @param collection the collection.
+         * @param function   An function to tranform object to Point
+         * @return the sorting list.
+         */
+        public List<T> sort(Collection<T> collection, Function<T, Point<T>> function) {
+            Objects.requireNonNull(collection);
+            Objects.requireNonNull(function);
+            if (collection.isEmpty()) {
+                return Collections.emptyList();
+            }
+            return sortDatas(map(collection, function));
+        }
+
+        /**
+         * Sort an collection of Points
+         *
+         * @param collection the collection.
+         * @return the sorting list.
+         */
+        public List<T> sort(Collection<Point<T>> collection) {
+            if (collection == null || collection.isEmpty()) {
+                return Collections.emptyList();
+            }
+            return sortDatas(new ArrayList<>(collection));
+        }
+
+        /**
+         * Sort an columnar set of points.
+         *
+         * @param set the points.
+         * @return the sorting list.
+         */
+        public List<T> sortSet(PointSet<T> set) {
+            if (set == null || set.isEmpty()) {
+                return Collections.emptyList();
+            }
+            final double[] keys = keysOfSet(set);
+            final int[] order = order(set::getData, keys);
+            final List<T> sorted = new ArrayList<>(order.length);
+            for (int index : order) {
+                sorted.add(set.getData(index));
+            }
+            return sorted;
+        }
+
+        /**
+         * The sorting key of each point of an set, see {@link #keys(List)}.
+         */
+        double[] keysOfSet(PointSet<T> set) {
+            if (reference == null) {
+                return nans(set.size());
+            }
+            if (!isParallel(set.size())) {
+                return reference.keysTo(set);
+            }
+            final double[] keys = new double[set.size()];
+            final int chunks = (keys.length + parallelThreshold - 1) / parallelThreshold;
+            Indexes.forEach(pool, chunks, 1, chunk -> {
+                final int from = chunk * parallelThreshold;
+                reference.keysTo(set, keys, from, Math.min(keys.length, from + parallelThreshold));
+            });
+            return keys;
+        }
+
+        private static double[] nans(int size) {
+            final double[] keys = new double[size];
+            Arrays.fill(keys, Double.NaN);
+            return keys;
+        }
+
+        /**
+         * Sort an collection of Points and keep their distances.
+         * The sort only uses the keys, an distance is computed when {@link Neighbour#getDistance()} is called.
+         *
+         * @param collection the collection.
+         * @return the sorting list.
+         */
+        public List<Neighbour<T>> neighbours(Collection<Point<T>> collection) {
+            if (collection == null || collection.isEmpty()) {
+                return Collections.emptyList();
+            }
+            final List<Point<T>> points = new ArrayList<>(collection);
+            final double[] keys = keys(points);
+            final int[] order = order(i -> points.get(i).getData(), keys);
+            final List<Neighbour<T>> neighbours = new ArrayList<>(order.length);
+            for (int index : order) {
+                neighbours.add(new Neighbour<>(points.get(index), reference, keys[index]));
+            }
+            return neighbours;
+        }
+
+        /**
+         * The k nearest objects of an collection, in ascending order.
+         * Only the k best candidates are kept, the collection is never fully sorted.
+         *
+         * @param collection the collection.
+         * @param function   An function to tranform object to Point
+         * @param k          the number of objects.
+         * @return the k nearest objects.
+         */
+        public List<T> nearest(Collection<T> collection, Function<T, Point<T>> function, int k) {
+            Objects.requireNonNull(function);
+            return firstNonNull(collection, Collections.<T>emptyList()).stream().map(function).collect(nearestCollector(k));
+        }
+
+        /**
+         * The k nearest objects of an collection of Points, in ascending order.
+         *
+         * @param collection the collection.
+         * @param k          the number of objects.
+         * @return the k nearest objects.
+         */
+        public List<T> nearest(Collection<Point<T>> collection, int k) {
+            return firstNonNull(collection, Collections.<Point<T>>emptyList()).stream().collect(nearestCollector(k));
+        }
+
+        /**
+         * The k farthest objects of an collection, in descending order.
+         *
+         * @param collection the collection.
+         * @param function   An function to tranform object to Point
+         * @param k          the number of objects.
+         * @return the k farthest objects.
+         */
+        public List<T> farthest(Collection<T> collection, Function<T, Point<T>> function, int k) {
+            Objects.requireNonNull(function);
+            return firstNonNull(collection, Collections.<T>emptyList()).stream().map(function).collect(farthestCollector(k));
+        }
+
+        /**
+         * The k farthest objects of an collection of Points, in descending order.
+         *
+         * @param collection the collection.
+         * @param k          the number of objects.
+         * @return the k farthest objects.
+         */
+        public List<T> farthest(Collection<Point<T>> collection, int k) {
+            return firstNonNull(collection, Collections.<Point<T>>emptyList()).stream().collect(farthestCollector(k));
+        }
+
+        /**
+         * An collector keeping the k nearest points of an stream, sequential or parallel.
+         *
+         * @param k the number of objects.
+         * @return the collector.
+         */
+        public Collector<Point<T>, ?, List<T>> nearestCollector(int k) {
+            return selector(k, false);
+        }
+
+        /**
+         * An collector keeping the k farthest points of an stream, sequential or parallel.
+         *
+         * @param k the number of objects.
+         * @return the collector.
+         */
+        public Collector<Point<T>, ?, List<T>> farthestCollector(int k) {
+            return selector(k, true);
+        }
+
+        private Collector<Point<T>, ?, List<T>> selector(int k, boolean descending) {
+            if (k < 0) {
+                throw new IllegalArgumentException("The number of objects must be positive");
+            }
+            return Collector.of(
+                    () -> new Selection(k, descending),
+                    Selection::offer,
+                    Selection::merge,
+                    Selection::toList);
+        }
+
+        private List<T> sortDatas(List<Point<T>> points) {
+            final int[] order = order(i -> points.get(i).getData(), keys(points));
+            final List<T> sorted = new ArrayList<>(order.length);
+            for (int index : order) {
+                sorted.add(points.get(index).getData());
+            }
+            return sorted;
+        }
+
+        /**
+         * Map an collection into an presized array of points, in the iteration order and with the duplicates.
+         * The mapping is forked in the pool of {@link #parallel(ForkJoinPool, int)} with the same threshold as the keys
+         * and the sort, it is sequential without pool.
+         *
+         * @param collection the collection.
+         * @param function   An function to tranform object to Point
+         * @return the points, in the same order.
+         */
+        private List<Point<T>> map(Collection<T> collection, Function<T, Point<T>> function) {
+            final Object[] source = collection.toArray();
+            @SuppressWarnings("unchecked")
+            final Point<T>[] points = (Point<T>[]) new Point<?>[source.length];
+            @SuppressWarnings("unchecked")
+            final IntConsumer action = i -> points[i] = function.apply((T) source[i]);
+            if (isParallel(source.length)) {
+                Indexes.forEach(pool, source.length, parallelThreshold, action);
+            } else {
+                for (int i = 0; i < source.length; i++) {
+                    action.accept(i);
+                }
+            }
+            return Arrays.asList(points);
+        }
+
+        /**
+         * Sort the positions of the points on their precomputed keys.
+         *
+         * @param datas the attached object of an position.
+         * @param keys  the keys of the points.
+         * @return the positions of the points in the sorting order.
+         */
+        int[] order(IntFunction<T> datas, double[] keys) {
+            final int[] order = Indexes.identity(keys.length);
+            final IntBinaryOperator comparator = (i, j) -> compare(datas.apply(i), keys[i], datas.apply(j), keys[j]);
+            if (isParallel(order.length)) {
+                Indexes.parallelSort(order, comparator, pool, parallelThreshold);
+            } else {
+                Indexes.sort(order, 0, order.length, comparator);
+            }
+            return order;
+        }
+
+        /**
+         * The positions of the first k points of {@link #order(IntFunction, double[])}, without sorting all the points :
+         * an bounded heap keeps the k best positions, the worst one on the top, and only these are sorted.
+         *
+         * @param datas the attached object of an position.
+         * @param keys  the keys of the points.
+         * @param k     the number of points.
+         * @return the positions of the k first points in the sorting order.
+         */
+        int[] select(IntFunction<T> datas, double[] keys, int k) {
+            if (k >= keys.length) {
+                return order(datas, keys);
+            }
+            // the ties are broken by position, as in the stable sort of order.
+            final IntBinaryOperator comparator = (i, j) -> {
+                final int compare = compare(datas.apply(i), keys[i], datas.apply(j), keys[j]);
+                return (compare != 0) ? compare : Integer.compare(i, j);
+            };
+            final int[] heap = new int[k];
+            int size = 0;
+            for (int index = 0; index < keys.length; index++) {
+                if (size < k) {
+                    int child = size++;
+                    heap[child] = index;
+                    while (child > 0 && comparator.applyAsInt(heap[child], heap[(child - 1) >>> 1]) > 0) {
+                        final int parent = (child - 1) >>> 1;
+                        final int swap = heap[parent];
+                        heap[parent] = heap[child];
+                        heap[child] = swap;
+                        child = parent;
+                    }
+                } else if (k > 0 && comparator.applyAsInt(index, heap[0]) < 0) {
+                    heap[0] = index;
+                    int parent = 0;
+                    while (true) {
+                        final int left = 2 * parent + 1;
+                        int largest = parent;
+                        if (left < k && comparator.applyAsInt(heap[left], heap[largest]) > 0) {
+                            largest = left;
+                        }
+                        if (left + 1 < k && comparator.applyAsInt(heap[left + 1], heap[largest]) > 0) {
+                            largest = left + 1;
+                        }
+                        if (largest == parent) {
+                            break;
+                        }
+                        final int swap = heap[parent];
+                        heap[parent] = heap[largest];
+                        heap[largest] = swap;
+                        parent = largest;
+                    }
+                }
+            }
+            Indexes.sort(heap, 0, size, comparator);
+            return heap;
+        }
+
+        /**
+         * The sorting key of each point, {@link Double#NaN} for the points without geo datas.
+         * The keys only grow with the distance : the acos and the unit conversions are not computed.
+         *
+         * @param list the points, copied first if the list has no random access.
+         * @return the keys, in the same order.
+         */
+        double[] keys(List<Point<T>> list) {
+            final List<Point<T>> points = (list instanceof RandomAccess) ? list : new ArrayList<>(list);
+            final double[] keys = new double[points.size()];
+            if (isParallel(keys.length)) {
+                Indexes.forEach(pool, keys.length, parallelThreshold, i -> keys[i] = key(points.get(i)));
+                return keys;
+            }
+            for (int i = 0; i < keys.length; i++) {
+                keys[i] = key(points.get(i));
+            }
+            return keys;
+        }
+
+        private boolean isParallel(int size) {
+            return pool != null && size > parallelThreshold;
+        }
+
+        double key(Point<T> pt) {
+            if (reference == null || pt.isEmpty()) {
+                return Double.NaN;
+            }
+            return reference.keyTo(pt.latValue(), pt.lonValue());
+        }
+
+        /**
+         * Compare two attached objects with the precomputed keys of their points.
+         */
+        int compare(T data1, double key1, T data2, double key2) {
+            return compare(data1, key1, data2, key2, desc);
+        }
+
+        private int compare(T data1, double key1, T data2, double key2, boolean desc) {
+            if (reference == null) {
+                return subComparator.compare(data1, data2);
+            }
+            final boolean empty1 = Double.isNaN(key1);
+            final boolean empty2 = Double.isNaN(key2);
+            if (empty1 && empty2) {
+                return subComparator.compare(data1, data2);
+            }
+            if (empty1) {
+                return nullSorting.first;
+            }
+            if (empty2) {
+                return nullSorting.second;
+            }
+            final int compare = Double.compare(key1, key2);
+            if (compare == 0) {
+                return subComparator.compare(data1, data2);
+            }
+            if (desc) {
+                return compare * -1;
+            }
+            return compare;
+        }
+
+        /**
+         * An point with its key and its position in the source.
+         */
+        private final class Candidate {
+            private final Point<T> point;
+            private final double key;
+            private long position;
+
+            private Candidate(Point<T> point, double key, long position) {
+                this.point = point;
+                this.key = key;
+                this.position = position;
+            }
+        }
+
+        /**
+         * Bounded heap keeping the k best candidates, the worst one on the top.
+         * The position breaks the ties so the result is the same as the first k elements of an stable sort.
+         */
+        private final class Selection {
+            private final int k;
+            private final boolean descending;
+            private final Comparator<Candidate> comparator;
+            private final PriorityQueue<Candidate> heap;
+            private long count = 0;
+
+            private Selection(int k, boolean descending) {
+                this.k = k;
+                this.descending = descending;
+                this.comparator = (c1, c2) -> {
+                    final int compare = compare(c1.point.getData(), c1.key, c2.point.getData(), c2.key, this.descending);
+                    if (compare == 0) {
+                        return Long.compare(c1.position, c2.position);
+                    }
+                    return compare;
+                };
+                this.heap = new PriorityQueue<>(Math.max(1, Math.min(k, 1024)), comparator.reversed());
+            }
+
+            private void offer(Point<T> pt) {
+                final long position = count++;
+                if (k == 0) {
+                    return;
                 }
-                if (pt2.isEmpty()) {
-                    return nullSorting.second;
+                final Candidate candidate = new Candidate(pt, key(pt), position);
+                if (heap.size() < k) {
+                    heap.add(candidate);
+                } else if (comparator.compare(candidate, heap.peek()) < 0) {
+                    heap.poll();
+                    heap.add(candidate);
+                }
+            }
+
+            private Selection merge(Selection other) {
+                for (Candidate candidate : other.heap) {
+                    candidate.position += count;
+                    if (heap.size() < k) {
+                        heap.add(candidate);
+                    } else if (comparator.compare(candidate, heap.peek()) < 0) {
+                        heap.poll();
+                        heap.add(candidate);
+                    }
                 }
-                final Distance d1 = cache.get(pt1);
-                final Distance d2 = cache.get(pt2);
-                final int compare = d1.compareTo(d2);
-                if (compare == 0) {
-                    return subComparatorOfPoints.compare(pt1, pt2);
+                count += other.count;
+                return this;
+            }
+
+            private List<T> toList() {
+                final List<Candidate> candidates = new ArrayList<>(heap);
+                candidates.sort(comparator);
+                final List<T> list = new ArrayList<>(candidates.size());
+                for (Candidate candidate : candidates) {
+                    list.add(candidate.point.getData());
                 }
-                if (desc) {
-                    return compare * -1;
+                return list;
+            }
+        }
+
+        /**
+         * The list of distance for an List of points.
+         * Nothing is kept between two calls : to sort the points and get their distances, {@link #neighbours(Collection)}
+         * computes both in one pass.
+         *
+         * @param collection the list.
+         * @return the list of Distance.
+         */
+        public List<Distance> distances(List<Point<T>> collection) {
+            final List<Point<T>> points = firstNonNull(collection, Collections.<Point<T>>emptyList());
+            if (reference == null) {
+                return points.stream().map(p -> new Distance()).collect(Collectors.toList());
+            }
+            return distancesOfKeys(keys(points));
+        }
+
+        /**
+         * The distances of keys computed by {@link #keys(List)} : an distance is derived from its key, without computing
+         * the trigonometry of the point again.
+         */
+        private List<Distance> distancesOfKeys(double[] keys) {
+            final List<Distance> distances = new ArrayList<>(keys.length);
+            for (double key : keys) {
+                distances.add(new Distance(reference.milesOfKey(key)));
+            }
+            return distances;
+        }
+
+        /**
+         * The list of distance for an columnar set of points.
+         *
+         * @param set the points.
+         * @return the list of Distance.
+         */
+        public List<Distance> distancesOfSet(PointSet<T> set) {
+            if (set == null || set.isEmpty()) {
+                return Collections.emptyList();
+            }
+            final List<Distance> distances = new ArrayList<>(set.size());
+            if (reference == null) {
+                for (int i = 0; i < set.size(); i++) {
+                    distances.add(new Distance());
                 }
-                return compare;
-            };
+                return distances;
+            }
+            for (double miles : reference.milesTo(set)) {
+                distances.add(new Distance(miles));
+            }
+            return distances;
+        }
+
+        /**
+         * An comparator of points, for the callers which can not sort on positions.
+         * The keys are recomputed on each comparison : with the trigonometry of the reference precomputed, an key costs
+         * less than an hash lookup. The sorts of this class compute each key once, by position, see {@link #keys(List)}.
+         *
+         * @return the comparator.
+         */
+        Comparator<Point<T>> getComparatorPoints() {
+            return (pt1, pt2) -> compare(pt1.getData(), key(pt1), pt2.getData(), key(pt2));
+        }
+    }
+
+    /**
+     * Ranking of points maintained one update at a time, in the order of an {@link Sorter}.
+     * <p>
+     * The points are identified by their attached objects, with {@link Object#equals(Object)}. An point is put, moved or
+     * removed in O(log n) : its key is computed once and it is placed in an sorted tree. The first k points are then
+     * read in O(k + log n), without sorting the whole set again. The ties are ordered by first insertion, as the stable
+     * sort of the {@link Sorter} over the points in insertion order.
+     * <p>
+     * An tracker is not thread-safe.
+     *
+     * @param <T> the attached object.
+     */
+    public static final class Tracker<T> {
+        private final Sorter<T> sorter;
+        private final Map<T, Tracked<T>> entries = new HashMap<>();
+        private final NavigableSet<Tracked<T>> ranking;
+        private long sequence = 0;
+
+        private Tracker(Sorter<T> sorter) {
+            this.sorter = sorter;
+            this.ranking = new TreeSet<>((e1, e2) -> {
+                final int compare = sorter.compare(e1.point.getData(), e1.key, e2.point.getData(), e2.key);
+                return (compare != 0) ? compare : Long.compare(e1.sequence, e2.sequence);
+            });
+        }
+
+        /**
+         * Insert an point, or move it if its attached object is already tracked.
+         *
+         * @param pt the point.
+         * @return true if the point is new, false if it was moved.
+         */
+        public boolean put(Point<T> pt) {
+            Objects.requireNonNull(pt);
+            final Tracked<T> previous = entries.get(pt.getData());
+            if (previous != null) {
+                ranking.remove(previous);
+            }
+            final Tracked<T> entry = new Tracked<>(pt, sorter.key(pt), (previous == null) ? sequence++ : previous.sequence);
+            entries.put(pt.getData(), entry);
+            ranking.add(entry);
+            return previous == null;
+        }
+
+        /**
+         * Stop tracking an object.
+         *
+         * @param data the attached object.
+         * @return true if it was tracked.
+         */
+        public boolean remove(T data) {
+            final Tracked<T> entry = entries.remove(data);
+            if (entry == null) {
+                return false;
+            }
+            ranking.remove(entry);
+            return true;
+        }
+
+        /**
+         * Remove all the points.
+         */
+        public void clear() {
+            entries.clear();
+            ranking.clear();
+        }
+
+        public boolean contains(T data) {
+            return entries.containsKey(data);
+        }
+
+        /**
+         * The current point of an object.
+         *
+         * @param data the attached object.
+         * @return the point, or empty if not tracked.
+         */
+        public Optional<Point<T>> get(T data) {
+            final Tracked<T> entry = entries.get(data);
+            return (entry == null) ? Optional.empty() : Optional.of(entry.point);
+        }
+
+        public int size() {
+            return entries.size();
+        }
+
+        public boolean isEmpty() {
+            return entries.isEmpty();
+        }
+
+        /**
+         * The first k objects, the nearest ones in the ascending way.
+         *
+         * @param k the number of objects.
+         * @return the objects in the sorting order.
+         */
+        public List<T> top(int k) {
+            if (k < 0) {
+                throw new IllegalArgumentException("The number of objects must be positive");
+            }
+            final List<T> list = new ArrayList<>(Math.min(k, ranking.size()));
+            for (Iterator<Tracked<T>> it = ranking.iterator(); it.hasNext() && list.size() < k; ) {
+                list.add(it.next().point.getData());
+            }
+            return list;
+        }
+
+        /**
+         * The first k points with their distances.
+         *
+         * @param k the number of points.
+         * @return the neighbours in the sorting order.
+         */
+        public List<Neighbour<T>> neighbours(int k) {
+            if (k < 0) {
+                throw new IllegalArgumentException("The number of points must be positive");
+            }
+            final List<Neighbour<T>> list = new ArrayList<>(Math.min(k, ranking.size()));
+            for (Iterator<Tracked<T>> it = ranking.iterator(); it.hasNext() && list.size() < k; ) {
+                final Tracked<T> entry = it.next();
+                list.add(new Neighbour<>(entry.point, sorter.reference, entry.key));
+            }
+            return list;
+        }
+
+        /**
+         * All the objects, in the sorting order.
+         *
+         * @return an copy of the ranking.
+         */
+        public List<T> list() {
+            return top(ranking.size());
+        }
+    }
+
+    /**
+     * An tracked point with its key and its insertion order.
+     */
+    private static final class Tracked<T> {
+        private final Point<T> point;
+        private final double key;
+        private final long sequence;
+
+        private Tracked(Point<T> point, double key, long sequence) {
+            this.point = point;
+            this.key = key;
+            this.sequence = sequence;
         }
     }
 
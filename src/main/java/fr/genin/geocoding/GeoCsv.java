@@ -0,0 +1,429 @@
+package fr.genin.geocoding;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Objects;
+import java.util.Spliterator;
+import java.util.function.Consumer;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+
+/**
+ * Streaming loader of csv geo datas.
+ * <p>
+ * The file is memory mapped and read line by line : the lattitude and the longitude are parsed directly from the bytes,
+ * the other columns are only decoded when the mapping function asks for them. The stream can be parallel, the file is
+ * then parsed by chunks of lines. The quoted values are not supported.
+ * Exemple :
+ * <code>
+ * Stream&lt;Point&lt;String&gt;&gt; communes = GeoCsv.on(';').lat(11).lon(12).withHeader()
+ * .stream(path, row -&gt; row.get(8));
+ * </code>
+ */
+public final class GeoCsv {
+
+    private static final double[] POWERS_OF_TEN = {
+            1e0, 1e1, 1e2, 1e3, 1e4, 1e5, 1e6, 1e7, 1e8, 1e9, 1e10,
+            1e11, 1e12, 1e13, 1e14, 1e15, 1e16, 1e17, 1e18, 1e19, 1e20, 1e21, 1e22
+    };
+    private static final int MAX_EXACT_DIGITS = 15;
+    private static final int MIN_SPLIT_SIZE = 1 << 16;
+
+    private final byte separator;
+    private int latColumn = -1;
+    private int lonColumn = -1;
+    private boolean header = false;
+
+    private GeoCsv(byte separator) {
+        this.separator = separator;
+    }
+
+    /**
+     * Create an loader.
+     *
+     * @param separator the separator of the columns, an ASCII character.
+     * @return the loader.
+     */
+    public static GeoCsv on(char separator) {
+        if (separator > 127) {
+            throw new IllegalArgumentException("The separator must be an ASCII character");
+        }
+        return new GeoCsv((byte) separator);
+    }
+
+    /**
+     * The column of the lattitude.
+     *
+     * @param column the position of the column, from 0.
+     * @return the instance.
+     */
+    public GeoCsv lat(int column) {
+        this.latColumn = column;
+        return this;
+    }
+
+    /**
+     * The column of the longitude.
+     *
+     * @param column the position of the column, from 0.
+     * @return the instance.
+     */
+    public GeoCsv lon(int column) {
+        this.lonColumn = column;
+        return this;
+    }
+
+    /**
+     * The first line is an header and must be skipped.
+     *
+     * @return the instance.
+     */
+    public GeoCsv withHeader() {
+        this.header = true;
+        return this;
+    }
+
+    /**
+     * Stream the points of an file.
+     *
+     * @param path     the file.
+     * @param function An function to tranform an row to the attached object, never null.
+     * @param <T>      the attached object.
+     * @return the stream, sequential.
+     * @throws IOException if the file can not be read.
+     * @throws NullPointerException while streaming, if the function returns null.
+     */
+    public <T> Stream<Point<T>> stream(Path path, Function<Row, T> function) throws IOException {
+        return StreamSupport.stream(lines(path, function), false);
+    }
+
+    /**
+     * Load the points of an file in an columnar set, the lines are parsed in parallel.
+     * Each chunk of lines is parsed straight into its own builder, without any point, then the builders are appended
+     * in the order of the file.
+     *
+     * @param path     the file.
+     * @param function An function to tranform an row to the attached object, never null.
+     * @param <T>      the attached object.
+     * @return the set.
+     * @throws IOException if the file can not be read.
+     * @throws NullPointerException if the function returns null.
+     */
+    public <T> PointSet<T> pointSet(Path path, Function<Row, T> function) throws IOException {
+        final List<Lines<T>> chunks = new ArrayList<>();
+        split(lines(path, function), chunks);
+        final List<PointSet.Builder<T>> builders = chunks.parallelStream().map(Lines::load).collect(Collectors.toList());
+        final PointSet.Builder<T> builder = builders.get(0);
+        for (int i = 1; i < builders.size(); i++) {
+            builder.addAll(builders.get(i));
+        }
+        return builder.build();
+    }
+
+    private static <T> void split(Lines<T> lines, List<Lines<T>> chunks) {
+        final Lines<T> prefix = lines.trySplit();
+        if (prefix == null) {
+            chunks.add(lines);
+            return;
+        }
+        split(prefix, chunks);
+        split(lines, chunks);
+    }
+
+    private <T> Lines<T> lines(Path path, Function<Row, T> function) throws IOException {
+        Objects.requireNonNull(path);
+        Objects.requireNonNull(function);
+        if (latColumn < 0 || lonColumn < 0) {
+            throw new IllegalStateException("The lattitude and longitude columns must be set");
+        }
+        final ByteBuffer buffer = map(path);
+        int start = 0;
+        if (buffer.limit() >= 3 && buffer.get(0) == (byte) 0xEF && buffer.get(1) == (byte) 0xBB && buffer.get(2) == (byte) 0xBF) {
+            start = 3;
+        }
+        if (header) {
+            start = nextLine(buffer, start, buffer.limit());
+        }
+        return new Lines<>(buffer, start, buffer.limit(), latColumn, lonColumn, function);
+    }
+
+    private static ByteBuffer map(Path path) throws IOException {
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            if (channel.size() > Integer.MAX_VALUE) {
+                throw new IOException("The file is too large to be mapped : " + path);
+            }
+            return channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+        }
+    }
+
+    /**
+     * The start of the line after position.
+     */
+    private static int nextLine(ByteBuffer buffer, int position, int end) {
+        int i = position;
+        while (i < end && buffer.get(i) != '\n') {
+            i++;
+        }
+        return Math.min(end, i + 1);
+    }
+
+    /**
+     * Parse an decimal number between start and end.
+     * The usual notation with at most 15 significant digits is converted without any object, the others go through
+     * {@link Double#parseDouble(String)}.
+     *
+     * @return the value or {@link Double#NaN} if not an number.
+     */
+    static double parseDouble(ByteBuffer buffer, int start, int end) {
+        while (start < end && buffer.get(start) == ' ') {
+            start++;
+        }
+        while (end > start && buffer.get(end - 1) == ' ') {
+            end--;
+        }
+        if (start == end) {
+            return Double.NaN;
+        }
+        int i = start;
+        boolean negative = false;
+        if (buffer.get(i) == '-' || buffer.get(i) == '+') {
+            negative = buffer.get(i) == '-';
+            i++;
+        }
+        long mantissa = 0;
+        int digits = 0;
+        int scale = 0;
+        boolean dot = false;
+        boolean any = false;
+        for (; i < end; i++) {
+            final byte b = buffer.get(i);
+            if (b >= '0' && b <= '9') {
+                any = true;
+                if (digits < 18) {
+                    mantissa = mantissa * 10 + (b - '0');
+                    if (mantissa != 0) {
+                        digits++;
+                    }
+                    if (dot) {
+                        scale++;
+                    }
+                } else {
+                    return slowParse(buffer, start, end);
+                }
+            } else if (b == '.' && !dot) {
+                dot = true;
+            } else if (b == 'e' || b == 'E') {
+                return any ? slowParse(buffer, start, end) : Double.NaN;
+            } else {
+                return Double.NaN;
+            }
+        }
+        if (!any) {
+            return Double.NaN;
+        }
+        if (digits > MAX_EXACT_DIGITS || scale >= POWERS_OF_TEN.length) {
+            return slowParse(buffer, start, end);
+        }
+        final double value = mantissa / POWERS_OF_TEN[scale];
+        return negative ? -value : value;
+    }
+
+    private static double slowParse(ByteBuffer buffer, int start, int end) {
+        try {
+            return Double.parseDouble(decode(buffer, start, end));
+        } catch (NumberFormatException nbe) {
+            return Double.NaN;
+        }
+    }
+
+    private static String decode(ByteBuffer buffer, int start, int end) {
+        final byte[] bytes = new byte[end - start];
+        for (int i = 0; i < bytes.length; i++) {
+            bytes[i] = buffer.get(start + i);
+        }
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    /**
+     * An line of the file, only valid during the call of the mapping function.
+     */
+    public final class Row {
+        private final ByteBuffer buffer;
+        private int[] starts = new int[16];
+        private int columns;
+        private int end;
+
+        private Row(ByteBuffer buffer) {
+            this.buffer = buffer;
+        }
+
+        private void reset(int start, int end) {
+            this.end = end;
+            columns = 0;
+            starts[columns++] = start;
+            for (int i = start; i < end; i++) {
+                if (buffer.get(i) == separator) {
+                    if (columns == starts.length) {
+                        starts = Arrays.copyOf(starts, columns * 2);
+                    }
+                    starts[columns++] = i + 1;
+                }
+            }
+        }
+
+        private int columnEnd(int column) {
+            return (column + 1 < columns) ? starts[column + 1] - 1 : end;
+        }
+
+        /**
+         * The number of columns of the line.
+         *
+         * @return the number.
+         */
+        public int columns() {
+            return columns;
+        }
+
+        /**
+         * The trimmed value of an column.
+         *
+         * @param column the position of the column, from 0.
+         * @return the value, or null if the line has not this column.
+         */
+        public String get(int column) {
+            if (column < 0 || column >= columns) {
+                return null;
+            }
+            return decode(buffer, starts[column], columnEnd(column)).trim();
+        }
+
+        /**
+         * The numeric value of an column, parsed without creating an String.
+         *
+         * @param column the position of the column, from 0.
+         * @return the value, or {@link Double#NaN} if missing or not a number.
+         */
+        public double getDouble(int column) {
+            if (column < 0 || column >= columns) {
+                return Double.NaN;
+            }
+            return parseDouble(buffer, starts[column], columnEnd(column));
+        }
+    }
+
+    /**
+     * The lines between start and end, splittable on the line boundaries.
+     * The columns of the coordinates are fixed when the lines are created.
+     */
+    private final class Lines<T> implements Spliterator<Point<T>> {
+        private final ByteBuffer buffer;
+        private final int latColumn;
+        private final int lonColumn;
+        private final Function<Row, T> function;
+        private final Row row;
+        private int position;
+        private final int end;
+
+        private Lines(ByteBuffer buffer, int position, int end, int latColumn, int lonColumn, Function<Row, T> function) {
+            this.buffer = buffer;
+            this.position = position;
+            this.end = end;
+            this.latColumn = latColumn;
+            this.lonColumn = lonColumn;
+            this.function = function;
+            this.row = new Row(buffer);
+        }
+
+        @Override
+        public boolean tryAdvance(Consumer<? super Point<T>> action) {
+            if (!nextRow()) {
+                return false;
+            }
+            action.accept(Point.builder(data())
+                    .lat(nullIfNaN(row.getDouble(latColumn)))
+                    .lon(nullIfNaN(row.getDouble(lonColumn)))
+                    .build());
+            return true;
+        }
+
+        /**
+         * Parse the remaining lines into an builder.
+         */
+        private PointSet.Builder<T> load() {
+            final PointSet.Builder<T> builder = PointSet.builder((int) estimateSize());
+            while (nextRow()) {
+                builder.add(data(), row.getDouble(latColumn), row.getDouble(lonColumn));
+            }
+            return builder;
+        }
+
+        /**
+         * Move the row to the next non empty line.
+         *
+         * @return false at the end of the lines.
+         */
+        private boolean nextRow() {
+            while (position < end) {
+                final int start = position;
+                int lineEnd = start;
+                while (lineEnd < end && buffer.get(lineEnd) != '\n') {
+                    lineEnd++;
+                }
+                position = Math.min(end, lineEnd + 1);
+                if (lineEnd > start && buffer.get(lineEnd - 1) == '\r') {
+                    lineEnd--;
+                }
+                if (lineEnd == start) {
+                    continue;
+                }
+                row.reset(start, lineEnd);
+                return true;
+            }
+            return false;
+        }
+
+        /**
+         * The attached object of the current row, the same check for the stream and for the set.
+         */
+        private T data() {
+            return Objects.requireNonNull(function.apply(row), "The function returned null for an row");
+        }
+
+        private Double nullIfNaN(double value) {
+            return Double.isNaN(value) ? null : value;
+        }
+
+        @Override
+        public Lines<T> trySplit() {
+            if (end - position < MIN_SPLIT_SIZE) {
+                return null;
+            }
+            final int middle = nextLine(buffer, position + (end - position) / 2, end);
+            if (middle >= end) {
+                return null;
+            }
+            final Lines<T> prefix = new Lines<>(buffer, position, middle, latColumn, lonColumn, function);
+            position = middle;
+            return prefix;
+        }
+
+        @Override
+        public long estimateSize() {
+            return (end - position) / 64;
+        }
+
+        @Override
+        public int characteristics() {
+            return ORDERED | NONNULL | IMMUTABLE;
+        }
+    }
+}
@@ -0,0 +1,254 @@
+package fr.genin.geocoding;
+
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import fr.genin.geocoding.Distances.BoundingBox;
+import fr.genin.geocoding.Distances.Neighbour;
+import fr.genin.geocoding.Distances.Reference;
+
+import static fr.genin.geocoding.Utils.firstNonNull;
+
+/**
+ * Mutable index of points bucketed in lattitude / longitude cells.
+ * <p>
+ * An query first lists the cells overlapping an bounding box, then only the points of these cells are refined.
+ * The points can be added and removed concurrently. The points without geo datas are ignored.
+ *
+ * @param <T> the attached object.
+ */
+public final class GridIndex<T> {
+
+    /**
+     * Default size of an cell in degrees, about 28 km of lattitude.
+     */
+    public static final double DEFAULT_CELL_SIZE = 0.25;
+
+    private final double cellSize;
+    private final int lonCells;
+    private final int latCells;
+    private final Map<Long, Set<Point<T>>> cells = new ConcurrentHashMap<>();
+    private final AtomicInteger size = new AtomicInteger();
+
+    private GridIndex(double cellSize) {
+        if (!(cellSize > 0) || cellSize > 180) {
+            throw new IllegalArgumentException("The cell size must be in ]0, 180]");
+        }
+        this.cellSize = cellSize;
+        this.lonCells = (int) Math.ceil(360 / cellSize);
+        this.latCells = (int) Math.ceil(180 / cellSize);
+    }
+
+    /**
+     * Create an empty index with cells of {@link #DEFAULT_CELL_SIZE} degrees.
+     *
+     * @param <T> the attached object.
+     * @return the index.
+     */
+    public static <T> GridIndex<T> create() {
+        return create(DEFAULT_CELL_SIZE);
+    }
+
+    /**
+     * Create an empty index.
+     *
+     * @param cellSize the size of the cells in degrees.
+     * @param <T>      the attached object.
+     * @return the index.
+     */
+    public static <T> GridIndex<T> create(double cellSize) {
+        return new GridIndex<>(cellSize);
+    }
+
+    /**
+     * Add an point.
+     *
+     * @param pt the point.
+     * @return true if added, false if the point has no geo datas or is already in the index.
+     */
+    public boolean add(Point<T> pt) {
+        if (pt == null || pt.isEmpty()) {
+            return false;
+        }
+        final boolean[] added = new boolean[1];
+        // in compute, so an concurrent remove can not drop the cell between its lookup and the add.
+        cells.compute(cell(pt.latValue(), pt.lonValue()), (k, points) -> {
+            final Set<Point<T>> cell = (points == null) ? ConcurrentHashMap.newKeySet() : points;
+            added[0] = cell.add(pt);
+            return cell;
+        });
+        if (added[0]) {
+            size.incrementAndGet();
+        }
+        return added[0];
+    }
+
+    /**
+     * Add points.
+     *
+     * @param collection the points.
+     * @return the instance.
+     */
+    public GridIndex<T> addAll(Collection<Point<T>> collection) {
+        for (Point<T> pt : firstNonNull(collection, Collections.<Point<T>>emptyList())) {
+            add(pt);
+        }
+        return this;
+    }
+
+    /**
+     * Remove an point, with the coordinates it had when added.
+     *
+     * @param pt the point.
+     * @return true if removed.
+     */
+    public boolean remove(Point<T> pt) {
+        if (pt == null || pt.isEmpty()) {
+            return false;
+        }
+        final boolean[] removed = new boolean[1];
+        // the empty cells are dropped, so the points which keep moving do not leave an entry in each cell visited.
+        cells.computeIfPresent(cell(pt.latValue(), pt.lonValue()), (k, points) -> {
+            removed[0] = points.remove(pt);
+            return points.isEmpty() ? null : points;
+        });
+        if (removed[0]) {
+            size.decrementAndGet();
+        }
+        return removed[0];
+    }
+
+    /**
+     * The number of indexed points.
+     *
+     * @return the size.
+     */
+    public int size() {
+        return size.get();
+    }
+
+    /**
+     * The number of non empty cells.
+     *
+     * @return the number of cells.
+     */
+    int cellCount() {
+        return cells.size();
+    }
+
+    /**
+     * The points of the cells overlapping an box. Some of them can be outside of the box.
+     *
+     * @param box the box.
+     * @return the candidates.
+     */
+    public List<Point<T>> candidates(BoundingBox box) {
+        Objects.requireNonNull(box);
+        final int minLatCell = latCell(box.getMinLat());
+        final int maxLatCell = latCell(box.getMaxLat());
+        final int minLonCell = lonCell(box.getMinLon());
+        int maxLonCell = lonCell(box.getMaxLon());
+        if (box.crossesAntimeridian()) {
+            maxLonCell += lonCells;
+        }
+        final long boxCells = (long) (maxLatCell - minLatCell + 1) * (maxLonCell - minLonCell + 1);
+
+        final List<Point<T>> candidates = new ArrayList<>();
+        if (boxCells > cells.size()) {
+            for (Map.Entry<Long, Set<Point<T>>> entry : cells.entrySet()) {
+                final int latCell = (int) (entry.getKey() >> 32);
+                final int lonCell = (int) (long) entry.getKey();
+                if (latCell >= minLatCell && latCell <= maxLatCell
+                        && (between(lonCell, minLonCell, maxLonCell) || between(lonCell + lonCells, minLonCell, maxLonCell))) {
+                    candidates.addAll(entry.getValue());
+                }
+            }
+            return candidates;
+        }
+        for (int latCell = minLatCell; latCell <= maxLatCell; latCell++) {
+            for (int lonCell = minLonCell; lonCell <= maxLonCell; lonCell++) {
+                final Set<Point<T>> points = cells.get(key(latCell, lonCell % lonCells));
+                if (points != null) {
+                    candidates.addAll(points);
+                }
+            }
+        }
+        return candidates;
+    }
+
+    /**
+     * The points in an box.
+     *
+     * @param box the box.
+     * @return the points.
+     */
+    public List<Point<T>> inBox(BoundingBox box) {
+        final List<Point<T>> candidates = candidates(box);
+        final List<Point<T>> points = new ArrayList<>(candidates.size());
+        for (Point<T> pt : candidates) {
+            if (box.contains(pt)) {
+                points.add(pt);
+            }
+        }
+        return points;
+    }
+
+    /**
+     * The points within an radius of an coordinate, in ascending order.
+     *
+     * @param lat    lattitude
+     * @param lon    longitude
+     * @param radius the radius in kilometers.
+     * @return the points with their distances.
+     */
+    public List<Neighbour<T>> withinKm(double lat, double lon, double radius) {
+        return withinMiles(lat, lon, radius / Distances.MILES2KM);
+    }
+
+    /**
+     * The points within an radius of an coordinate, in ascending order.
+     *
+     * @param lat    lattitude
+     * @param lon    longitude
+     * @param radius the radius in miles.
+     * @return the points with their distances.
+     */
+    public List<Neighbour<T>> withinMiles(double lat, double lon, double radius) {
+        if (radius < 0) {
+            return Collections.emptyList();
+        }
+        final Reference reference = Distances.reference(lat, lon);
+        final List<Neighbour<T>> neighbours = new ArrayList<>();
+        for (Point<T> pt : candidates(BoundingBox.aroundMiles(lat, lon, radius))) {
+            final double miles = reference.milesTo(pt.latValue(), pt.lonValue());
+            if (miles <= radius) {
+                neighbours.add(new Neighbour<>(pt, miles));
+            }
+        }
+        neighbours.sort(Comparator.comparing(Neighbour::getDistance));
+        return neighbours;
+    }
+
+    private static boolean between(int value, int min, int max) {
+        return value >= min && value <= max;
+    }
+
+    private int latCell(double lat) {
+        return Math.max(0, Math.min(latCells - 1, (int) Math.floor((lat + 90) / cellSize)));
+    }
+
+    private int lonCell(double lon) {
+        final double normalized = lon - 360 * Math.floor((lon + 180) / 360);
+        final double east = (normalized == -180 && lon > 0) ? 180 : normalized;
+        return Math.max(0, Math.min(lonCells - 1, (int) Math.floor((east + 180) / cellSize)));
+    }
+
+    private long cell(double lat, double lon) {
+        return key(latCell(lat), lonCell(lon));
+    }
+
+    private static long key(int latCell, int lonCell) {
+        return ((long) latCell << 32) | (lonCell & 0xffffffffL);
+    }
+}
@@ -49,6 +49,24 @@ public interface Point<T> {
      */
     Optional<Double> getLon();
 
+    /**
+     * The lattitude without boxing.
+     *
+     * @return the lattitude or {@link Double#NaN} if not present.
+     */
+    default double latValue() {
+        return getLat().orElse(Double.NaN);
+    }
+
+    /**
+     * The longitude without boxing.
+     *
+     * @return the longitude or {@link Double#NaN} if not present.
+     */
+    default double lonValue() {
+        return getLon().orElse(Double.NaN);
+    }
+
     /**
      * True if all the geopoint data are present.
      *
@@ -0,0 +1,423 @@
+package fr.genin.geocoding;
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.*;
+import java.util.function.Function;
+import java.util.stream.IntStream;
+import java.util.stream.Stream;
+
+import static fr.genin.geocoding.Utils.firstNonNull;
+
+/**
+ * Compact binary file of points, read through an memory mapping.
+ * <p>
+ * The layout is, in little endian :
+ * <ul>
+ * <li>the header : magic, version, number of records, number of string fields ;</li>
+ * <li>the lattitudes then the longitudes, fixed width doubles, {@link Double#NaN} if missing ;</li>
+ * <li>the offsets of the strings, the field names first then the fields of each record ;</li>
+ * <li>the string table, in UTF-8.</li>
+ * </ul>
+ * The records are exposed as {@link Point} views over the mapped file : an string is only decoded when asked.
+ * An null string is written as an empty one.
+ */
+public final class PointFile {
+
+    private static final int MAGIC = 0x47454f50;
+    private static final int VERSION = 1;
+    private static final int HEADER_SIZE = 16;
+
+    private final ByteBuffer buffer;
+    private final int size;
+    private final int fieldCount;
+    private final int latOffset;
+    private final int lonOffset;
+    private final int stringOffsets;
+    private final int stringTable;
+    private final int tableLength;
+    private final List<String> fields;
+
+    private PointFile(ByteBuffer buffer) throws IOException {
+        this.buffer = buffer.order(ByteOrder.LITTLE_ENDIAN);
+        if (buffer.limit() < HEADER_SIZE || buffer.getInt(0) != MAGIC) {
+            throw new IOException("Not an point file");
+        }
+        if (buffer.getInt(4) != VERSION) {
+            throw new IOException("Unsupported point file version : " + buffer.getInt(4));
+        }
+        this.size = buffer.getInt(8);
+        this.fieldCount = buffer.getInt(12);
+        // checked in long before building the columns, so an corrupted count can not overflow past the end of the file.
+        final long columns = HEADER_SIZE + 16L * size;
+        final long strings = fieldCount * (size + 1L) + 1;
+        if (size < 0 || fieldCount < 0 || strings > (buffer.limit() - columns) / 4) {
+            throw truncated(buffer);
+        }
+        this.latOffset = HEADER_SIZE;
+        this.lonOffset = latOffset + 8 * size;
+        this.stringOffsets = lonOffset + 8 * size;
+        this.stringTable = (int) (columns + 4 * strings);
+        this.tableLength = buffer.getInt(stringTable - 4);
+        if (tableLength < 0 || (long) stringTable + tableLength > buffer.limit()) {
+            throw truncated(buffer);
+        }
+        final List<String> names = new ArrayList<>(fieldCount);
+        try {
+            for (int f = 0; f < fieldCount; f++) {
+                names.add(string(f));
+            }
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        }
+        this.fields = Collections.unmodifiableList(names);
+    }
+
+    private static IOException truncated(ByteBuffer buffer) {
+        return new IOException("Truncated point file : " + buffer.getInt(8) + " records of " + buffer.getInt(12)
+                + " fields in " + buffer.limit() + " bytes");
+    }
+
+    /**
+     * Map an point file in memory.
+     *
+     * @param path the file.
+     * @return the file.
+     * @throws IOException if the file can not be read, is too large to be mapped or is not an valid point file.
+     */
+    public static PointFile open(Path path) throws IOException {
+        Objects.requireNonNull(path);
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            if (channel.size() > Integer.MAX_VALUE) {
+                throw new IOException("The file is too large to be mapped : " + path);
+            }
+            return new PointFile(channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size()));
+        }
+    }
+
+    /**
+     * Write an point file.
+     *
+     * @param path   the file.
+     * @param points the points.
+     * @param fields the string fields of an record by name, in the order of the map.
+     * @param <T>    the attached object.
+     * @throws IOException if the file can not be written.
+     */
+    public static <T> void write(Path path, Collection<Point<T>> points, Map<String, Function<T, String>> fields)
+            throws IOException {
+        Objects.requireNonNull(path);
+        Objects.requireNonNull(fields);
+        final List<Point<T>> records = new ArrayList<>(firstNonNull(points, Collections.<Point<T>>emptyList()));
+        final List<Function<T, String>> functions = new ArrayList<>(fields.values());
+        final List<byte[]> strings = new ArrayList<>(fields.size() * (records.size() + 1));
+        for (String name : fields.keySet()) {
+            strings.add(bytes(name));
+        }
+        for (Point<T> pt : records) {
+            for (Function<T, String> function : functions) {
+                strings.add(bytes(function.apply(pt.getData())));
+            }
+        }
+
+        try (OutputStream output = Files.newOutputStream(path)) {
+            final LittleEndianOutput out = new LittleEndianOutput(new BufferedOutputStream(output));
+            out.writeInt(MAGIC);
+            out.writeInt(VERSION);
+            out.writeInt(records.size());
+            out.writeInt(fields.size());
+            for (Point<T> pt : records) {
+                out.writeDouble(pt.latValue());
+            }
+            for (Point<T> pt : records) {
+                out.writeDouble(pt.lonValue());
+            }
+            int offset = 0;
+            for (byte[] string : strings) {
+                out.writeInt(offset);
+                offset += string.length;
+            }
+            out.writeInt(offset);
+            for (byte[] string : strings) {
+                out.write(string);
+            }
+            out.flush();
+        }
+    }
+
+    private static byte[] bytes(String value) {
+        return (value == null) ? new byte[0] : value.getBytes(StandardCharsets.UTF_8);
+    }
+
+    /**
+     * The number of records.
+     *
+     * @return the size.
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * The names of the string fields.
+     *
+     * @return the names.
+     */
+    public List<String> getFields() {
+        return fields;
+    }
+
+    /**
+     * The lattitude of an record.
+     *
+     * @param index the position.
+     * @return the lattitude or {@link Double#NaN} if missing.
+     */
+    public double latValue(int index) {
+        checkIndex(index);
+        return buffer.getDouble(latOffset + 8 * index);
+    }
+
+    /**
+     * The longitude of an record.
+     *
+     * @param index the position.
+     * @return the longitude or {@link Double#NaN} if missing.
+     */
+    public double lonValue(int index) {
+        checkIndex(index);
+        return buffer.getDouble(lonOffset + 8 * index);
+    }
+
+    /**
+     * An string field of an record, decoded from the mapped file.
+     *
+     * @param index the position.
+     * @param field the position of the field.
+     * @return the value.
+     * @throws UncheckedIOException if the offsets of the string are corrupted.
+     */
+    public String getString(int index, int field) {
+        checkIndex(index);
+        if (field < 0 || field >= fieldCount) {
+            throw new IndexOutOfBoundsException("Field: " + field + ", Fields: " + fieldCount);
+        }
+        return string(fieldCount * (index + 1) + field);
+    }
+
+    /**
+     * An view of an record.
+     *
+     * @param index the position.
+     * @return the point.
+     */
+    public Point<Record> get(int index) {
+        checkIndex(index);
+        return new Record(index).point;
+    }
+
+    /**
+     * All the records as an random access list of views, usable by {@link Distances.Sorter}.
+     *
+     * @return the points.
+     */
+    public List<Point<Record>> points() {
+        return new AbstractList<Point<Record>>() {
+            @Override
+            public Point<Record> get(int index) {
+                return PointFile.this.get(index);
+            }
+
+            @Override
+            public int size() {
+                return size;
+            }
+        };
+    }
+
+    /**
+     * An stream of the records.
+     *
+     * @return the stream.
+     */
+    public Stream<Point<Record>> stream() {
+        return IntStream.range(0, size).mapToObj(this::get);
+    }
+
+    /**
+     * Copy the coordinates in an columnar set, the records stay views over the file.
+     *
+     * @return the set.
+     */
+    public PointSet<Record> toPointSet() {
+        final PointSet.Builder<Record> builder = PointSet.builder(size);
+        for (int i = 0; i < size; i++) {
+            builder.add(new Record(i), latValue(i), lonValue(i));
+        }
+        return builder.build();
+    }
+
+    /**
+     * An string of the table, its offsets are checked as the file can be corrupted after the header.
+     *
+     * @throws UncheckedIOException if the offsets are outside of the string table.
+     */
+    private String string(int position) {
+        final int start = buffer.getInt(stringOffsets + 4 * position);
+        final int end = buffer.getInt(stringOffsets + 4 * (position + 1));
+        if (start < 0 || end < start || end > tableLength) {
+            throw new UncheckedIOException(new IOException("Corrupted point file : the string " + position + " is ["
+                    + start + ", " + end + "[ in an table of " + tableLength + " bytes"));
+        }
+        final byte[] bytes = new byte[end - start];
+        // an duplicate, so the concurrent readers do not share the position of the buffer.
+        final ByteBuffer view = buffer.duplicate();
+        view.position(stringTable + start);
+        view.get(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    private void checkIndex(int index) {
+        if (index < 0 || index >= size) {
+            throw new IndexOutOfBoundsException("Index: " + index + ", Size: " + size);
+        }
+    }
+
+    /**
+     * An record of the file.
+     */
+    public final class Record {
+        private final int index;
+        private final Point<Record> point = new View();
+
+        private Record(int index) {
+            this.index = index;
+        }
+
+        /**
+         * The position in the file.
+         *
+         * @return the position.
+         */
+        public int getIndex() {
+            return index;
+        }
+
+        /**
+         * An string field.
+         *
+         * @param field the position of the field.
+         * @return the value.
+         */
+        public String getString(int field) {
+            return PointFile.this.getString(index, field);
+        }
+
+        /**
+         * An string field.
+         *
+         * @param name the name of the field.
+         * @return the value.
+         */
+        public String getString(String name) {
+            final int field = fields.indexOf(name);
+            if (field < 0) {
+                throw new IllegalArgumentException("Unknown field : " + name);
+            }
+            return getString(field);
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            return o instanceof Record && ((Record) o).index == index && ((Record) o).file() == PointFile.this;
+        }
+
+        @Override
+        public int hashCode() {
+            return index;
+        }
+
+        private PointFile file() {
+            return PointFile.this;
+        }
+
+        private final class View implements Point<Record> {
+            @Override
+            public Record getData() {
+                return Record.this;
+            }
+
+            @Override
+            public Optional<Double> getLat() {
+                final double lat = latValue();
+                return Double.isNaN(lat) ? Optional.empty() : Optional.of(lat);
+            }
+
+            @Override
+            public Optional<Double> getLon() {
+                final double lon = lonValue();
+                return Double.isNaN(lon) ? Optional.empty() : Optional.of(lon);
+            }
+
+            @Override
+            public double latValue() {
+                return buffer.getDouble(latOffset + 8 * index);
+            }
+
+            @Override
+            public double lonValue() {
+                return buffer.getDouble(lonOffset + 8 * index);
+            }
+
+            @Override
+            public boolean isPresent() {
+                return !Double.isNaN(latValue()) && !Double.isNaN(lonValue());
+            }
+        }
+    }
+
+    /**
+     * Little endian writer, {@link DataOutputStream} only writes in big endian.
+     */
+    private static final class LittleEndianOutput {
+        private final OutputStream out;
+        private final byte[] scratch = new byte[8];
+
+        private LittleEndianOutput(OutputStream out) {
+            this.out = out;
+        }
+
+        private void writeInt(int value) throws IOException {
+            for (int i = 0; i < 4; i++) {
+                scratch[i] = (byte) (value >>> (8 * i));
+            }
+            out.write(scratch, 0, 4);
+        }
+
+        private void writeDouble(double value) throws IOException {
+            final long bits = Double.doubleToRawLongBits(value);
+            for (int i = 0; i < 8; i++) {
+                scratch[i] = (byte) (bits >>> (8 * i));
+            }
+            out.write(scratch, 0, 8);
+        }
+
+        private void write(byte[] bytes) throws IOException {
+            out.write(bytes);
+        }
+
+        private void flush() throws IOException {
+            out.flush();
+        }
+    }
+}
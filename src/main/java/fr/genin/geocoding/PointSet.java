@@ -0,0 +1,345 @@
+package fr.genin.geocoding;
+
+import java.util.*;
+import java.util.function.Function;
+import java.util.function.ToDoubleFunction;
+
+import fr.genin.geocoding.Utils.Doubles;
+
+import static fr.genin.geocoding.Utils.firstNonNull;
+
+/**
+ * Immutable columnar collection of points.
+ * <p>
+ * The lattitudes and longitudes are stored in parallel double arrays, with the sine and cosine of the lattitudes
+ * computed once, and the attached objects in a side array. Scoring the set against an reference point is a tight
+ * loop over contiguous memory. An missing coordinate is stored as {@link Double#NaN}.
+ *
+ * @param <T> the attached object.
+ */
+public final class PointSet<T> implements Iterable<Point<T>> {
+
+    private final int size;
+    private final Object[] datas;
+    private final double[] lats;
+    private final double[] lons;
+    private final double[] sinLats;
+    private final double[] cosLats;
+
+    private PointSet(int size, Object[] datas, double[] lats, double[] lons) {
+        this.size = size;
+        this.datas = datas;
+        this.lats = lats;
+        this.lons = lons;
+        this.sinLats = new double[size];
+        this.cosLats = new double[size];
+        for (int i = 0; i < size; i++) {
+            final double latRad = Doubles.deg2rad(lats[i]);
+            sinLats[i] = Math.sin(latRad);
+            cosLats[i] = Math.cos(latRad);
+        }
+    }
+
+    /**
+     * Create an builder.
+     *
+     * @param expectedSize the expected number of points.
+     * @param <T>          the attached object.
+     * @return the builder.
+     */
+    public static <T> Builder<T> builder(int expectedSize) {
+        return new Builder<>(expectedSize);
+    }
+
+    /**
+     * Create an set from points.
+     *
+     * @param collection the points.
+     * @param <T>        the attached object.
+     * @return the set.
+     */
+    public static <T> PointSet<T> of(Collection<Point<T>> collection) {
+        final Collection<Point<T>> points = firstNonNull(collection, Collections.<Point<T>>emptyList());
+        final Builder<T> builder = builder(points.size());
+        for (Point<T> pt : points) {
+            builder.add(pt);
+        }
+        return builder.build();
+    }
+
+    /**
+     * Create an set from objects.
+     *
+     * @param collection the objects.
+     * @param function   An function to tranform object to Point
+     * @param <T>        the attached object.
+     * @return the set.
+     */
+    public static <T> PointSet<T> of(Collection<T> collection, Function<T, Point<T>> function) {
+        Objects.requireNonNull(function);
+        final Collection<T> objects = firstNonNull(collection, Collections.<T>emptyList());
+        final Builder<T> builder = builder(objects.size());
+        for (T t : objects) {
+            builder.add(function.apply(t));
+        }
+        return builder.build();
+    }
+
+    /**
+     * Create an set from objects, reading the coordinates without building points.
+     *
+     * @param collection the objects.
+     * @param lat        the lattitude of an object, {@link Double#NaN} if missing.
+     * @param lon        the longitude of an object, {@link Double#NaN} if missing.
+     * @param <T>        the attached object.
+     * @return the set.
+     */
+    public static <T> PointSet<T> of(Collection<T> collection, ToDoubleFunction<T> lat, ToDoubleFunction<T> lon) {
+        Objects.requireNonNull(lat);
+        Objects.requireNonNull(lon);
+        final Collection<T> objects = firstNonNull(collection, Collections.<T>emptyList());
+        final Builder<T> builder = builder(objects.size());
+        for (T t : objects) {
+            builder.add(t, lat.applyAsDouble(t), lon.applyAsDouble(t));
+        }
+        return builder.build();
+    }
+
+    /**
+     * The number of points.
+     *
+     * @return the size.
+     */
+    public int size() {
+        return size;
+    }
+
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    /**
+     * The attached object of an point.
+     *
+     * @param index the position.
+     * @return the object.
+     */
+    @SuppressWarnings("unchecked")
+    public T getData(int index) {
+        checkIndex(index);
+        return (T) datas[index];
+    }
+
+    /**
+     * The lattitude of an point.
+     *
+     * @param index the position.
+     * @return the lattitude or {@link Double#NaN} if missing.
+     */
+    public double latValue(int index) {
+        checkIndex(index);
+        return lats[index];
+    }
+
+    /**
+     * The longitude of an point.
+     *
+     * @param index the position.
+     * @return the longitude or {@link Double#NaN} if missing.
+     */
+    public double lonValue(int index) {
+        checkIndex(index);
+        return lons[index];
+    }
+
+    /**
+     * True if the point has all its geo datas.
+     *
+     * @param index the position.
+     * @return true or false otherwise.
+     */
+    public boolean isPresent(int index) {
+        checkIndex(index);
+        return isPresent(lats[index], lons[index]);
+    }
+
+    /**
+     * An view of an point.
+     *
+     * @param index the position.
+     * @return the point.
+     */
+    public Point<T> get(int index) {
+        checkIndex(index);
+        return new View(index);
+    }
+
+    @Override
+    public Iterator<Point<T>> iterator() {
+        return new Iterator<Point<T>>() {
+            private int index = 0;
+
+            @Override
+            public boolean hasNext() {
+                return index < size;
+            }
+
+            @Override
+            public Point<T> next() {
+                if (!hasNext()) {
+                    throw new NoSuchElementException();
+                }
+                return new View(index++);
+            }
+        };
+    }
+
+    double[] lats() {
+        return lats;
+    }
+
+    double[] lons() {
+        return lons;
+    }
+
+    double[] sinLats() {
+        return sinLats;
+    }
+
+    double[] cosLats() {
+        return cosLats;
+    }
+
+    private static boolean isPresent(double lat, double lon) {
+        return !Double.isNaN(lat) && !Double.isNaN(lon);
+    }
+
+    private void checkIndex(int index) {
+        if (index < 0 || index >= size) {
+            throw new IndexOutOfBoundsException("Index: " + index + ", Size: " + size);
+        }
+    }
+
+    /**
+     * Point backed by the arrays.
+     */
+    private final class View implements Point<T> {
+        private final int index;
+
+        private View(int index) {
+            this.index = index;
+        }
+
+        @Override
+        @SuppressWarnings("unchecked")
+        public T getData() {
+            return (T) datas[index];
+        }
+
+        @Override
+        public Optional<Double> getLat() {
+            return Double.isNaN(lats[index]) ? Optional.empty() : Optional.of(lats[index]);
+        }
+
+        @Override
+        public Optional<Double> getLon() {
+            return Double.isNaN(lons[index]) ? Optional.empty() : Optional.of(lons[index]);
+        }
+
+        @Override
+        public double latValue() {
+            return lats[index];
+        }
+
+        @Override
+        public double lonValue() {
+            return lons[index];
+        }
+
+        @Override
+        public boolean isPresent() {
+            return PointSet.isPresent(lats[index], lons[index]);
+        }
+    }
+
+    /**
+     * The builder of PointSet.
+     *
+     * @param <T> the attached object.
+     */
+    public static final class Builder<T> {
+        private int size = 0;
+        private Object[] datas;
+        private double[] lats;
+        private double[] lons;
+
+        private Builder(int expectedSize) {
+            final int capacity = Math.max(16, expectedSize);
+            datas = new Object[capacity];
+            lats = new double[capacity];
+            lons = new double[capacity];
+        }
+
+        /**
+         * Add an point.
+         *
+         * @param pt the point.
+         * @return the instance.
+         */
+        public Builder<T> add(Point<T> pt) {
+            Objects.requireNonNull(pt);
+            return add(pt.getData(), pt.latValue(), pt.lonValue());
+        }
+
+        /**
+         * Add an object and its coordinates.
+         *
+         * @param data the attached object.
+         * @param lat  the lattitude, {@link Double#NaN} if missing.
+         * @param lon  the longitude, {@link Double#NaN} if missing.
+         * @return the instance.
+         */
+        public Builder<T> add(T data, double lat, double lon) {
+            if (size == lats.length) {
+                final int capacity = size + (size >> 1);
+                datas = Arrays.copyOf(datas, capacity);
+                lats = Arrays.copyOf(lats, capacity);
+                lons = Arrays.copyOf(lons, capacity);
+            }
+            datas[size] = data;
+            lats[size] = lat;
+            lons[size] = lon;
+            size++;
+            return this;
+        }
+
+        /**
+         * Add all the points of an other builder, after the points of this one.
+         *
+         * @param other the builder.
+         * @return the instance.
+         */
+        Builder<T> addAll(Builder<T> other) {
+            if (size + other.size > lats.length) {
+                final int capacity = size + other.size;
+                datas = Arrays.copyOf(datas, capacity);
+                lats = Arrays.copyOf(lats, capacity);
+                lons = Arrays.copyOf(lons, capacity);
+            }
+            System.arraycopy(other.datas, 0, datas, size, other.size);
+            System.arraycopy(other.lats, 0, lats, size, other.size);
+            System.arraycopy(other.lons, 0, lons, size, other.size);
+            size += other.size;
+            return this;
+        }
+
+        /**
+         * Create the set.
+         *
+         * @return the set.
+         */
+        public PointSet<T> build() {
+            return new PointSet<>(size, Arrays.copyOf(datas, size), Arrays.copyOf(lats, size), Arrays.copyOf(lons, size));
+        }
+    }
+}
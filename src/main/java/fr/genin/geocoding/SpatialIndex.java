@@ -0,0 +1,379 @@
+package fr.genin.geocoding;
+
+import java.util.*;
+import java.util.function.Function;
+
+import fr.genin.geocoding.Distances.Neighbour;
+import fr.genin.geocoding.Distances.Reference;
+import fr.genin.geocoding.Utils.Doubles;
+
+import static fr.genin.geocoding.Utils.firstNonNull;
+
+/**
+ * Immutable k-d tree over the points, for repeated nearest-neighbour and radius queries.
+ * <p>
+ * The points are stored as 3D unit vectors : the chord length between two vectors grows with the distance on the
+ * sphere, so the tree can be searched with plain euclidean bounds. The returned distances are computed as
+ * {@link Distances#between(Point, Point)} does.
+ * The points without geo datas are ignored.
+ *
+ * @param <T> the attached object.
+ */
+public final class SpatialIndex<T> {
+
+    private static final int X = 0;
+    private static final int Y = 1;
+    private static final int Z = 2;
+    /**
+     * Slack on the chord to never miss an point on the radius boundary because of rounding.
+     */
+    private static final double CHORD_EPSILON = 1e-12;
+
+    private final List<Point<T>> points;
+    private final double[][] coordinates;
+    /**
+     * The points in tree order : the node of [from, to) is the median and its children are both halves.
+     */
+    private final int[] tree;
+    private final byte[] axis;
+
+    private SpatialIndex(List<Point<T>> points) {
+        this.points = points;
+        final int size = points.size();
+        this.coordinates = new double[3][size];
+        for (int i = 0; i < size; i++) {
+            final Point<T> pt = points.get(i);
+            final double lat = Doubles.deg2rad(pt.latValue());
+            final double lon = Doubles.deg2rad(pt.lonValue());
+            coordinates[X][i] = Math.cos(lat) * Math.cos(lon);
+            coordinates[Y][i] = Math.cos(lat) * Math.sin(lon);
+            coordinates[Z][i] = Math.sin(lat);
+        }
+        this.tree = Utils.Indexes.identity(size);
+        this.axis = new byte[size];
+        build(0, size);
+    }
+
+    /**
+     * Create an index of points.
+     *
+     * @param collection the points.
+     * @param <T>        the attached object.
+     * @return the index.
+     */
+    public static <T> SpatialIndex<T> of(Collection<Point<T>> collection) {
+        final List<Point<T>> points = new ArrayList<>();
+        for (Point<T> pt : firstNonNull(collection, Collections.<Point<T>>emptyList())) {
+            if (pt != null && pt.isPresent()) {
+                points.add(pt);
+            }
+        }
+        return new SpatialIndex<>(points);
+    }
+
+    /**
+     * Create an index of objects.
+     *
+     * @param collection the objects.
+     * @param function   An function to tranform object to Point
+     * @param <T>        the attached object.
+     * @return the index.
+     */
+    public static <T> SpatialIndex<T> of(Collection<T> collection, Function<T, Point<T>> function) {
+        Objects.requireNonNull(function);
+        final List<Point<T>> points = new ArrayList<>();
+        for (T t : firstNonNull(collection, Collections.<T>emptyList())) {
+            points.add(function.apply(t));
+        }
+        return of(points);
+    }
+
+    /**
+     * The number of indexed points.
+     *
+     * @return the size.
+     */
+    public int size() {
+        return points.size();
+    }
+
+    /**
+     * The k nearest points of an coordinate, in ascending order.
+     *
+     * @param lat lattitude
+     * @param lon longitude
+     * @param k   the number of points.
+     * @return the points with their distances.
+     */
+    public List<Neighbour<T>> nearest(double lat, double lon, int k) {
+        if (k < 0) {
+            throw new IllegalArgumentException("The number of points must be positive");
+        }
+        if (k == 0 || points.isEmpty()) {
+            return Collections.emptyList();
+        }
+        final double[] query = vector(lat, lon);
+        final Heap heap = new Heap(Math.min(k, points.size()));
+        nearest(query, 0, points.size(), heap);
+        final int[] found = heap.sorted();
+        final Reference reference = Distances.reference(lat, lon);
+        final List<Neighbour<T>> neighbours = new ArrayList<>(found.length);
+        for (int index : found) {
+            neighbours.add(neighbour(reference, index));
+        }
+        return neighbours;
+    }
+
+    /**
+     * The points within an radius of an coordinate, in ascending order.
+     *
+     * @param lat    lattitude
+     * @param lon    longitude
+     * @param radius the radius in kilometers.
+     * @return the points with their distances.
+     */
+    public List<Neighbour<T>> withinKm(double lat, double lon, double radius) {
+        return withinMiles(lat, lon, radius / Distances.MILES2KM);
+    }
+
+    /**
+     * The points within an radius of an coordinate, in ascending order.
+     *
+     * @param lat    lattitude
+     * @param lon    longitude
+     * @param radius the radius in miles.
+     * @return the points with their distances.
+     */
+    public List<Neighbour<T>> withinMiles(double lat, double lon, double radius) {
+        if (radius < 0 || points.isEmpty()) {
+            return Collections.emptyList();
+        }
+        final double angle = Math.min(Math.PI, Distances.milesToRadians(radius));
+        final double chord = 2 * Math.sin(angle / 2) + CHORD_EPSILON;
+        final double[] query = vector(lat, lon);
+        final List<Integer> found = new ArrayList<>();
+        within(query, chord * chord, 0, points.size(), found);
+
+        final Reference reference = Distances.reference(lat, lon);
+        final List<Neighbour<T>> neighbours = new ArrayList<>(found.size());
+        for (int index : found) {
+            final Neighbour<T> neighbour = neighbour(reference, index);
+            if (neighbour.getDistance().milesValue() <= radius) {
+                neighbours.add(neighbour);
+            }
+        }
+        neighbours.sort(Comparator.comparing(Neighbour::getDistance));
+        return neighbours;
+    }
+
+    private Neighbour<T> neighbour(Reference reference, int index) {
+        final Point<T> pt = points.get(index);
+        return new Neighbour<>(pt, reference.milesTo(pt.latValue(), pt.lonValue()));
+    }
+
+    private static double[] vector(double lat, double lon) {
+        final double latRad = Doubles.deg2rad(lat);
+        final double lonRad = Doubles.deg2rad(lon);
+        return new double[]{
+                Math.cos(latRad) * Math.cos(lonRad),
+                Math.cos(latRad) * Math.sin(lonRad),
+                Math.sin(latRad)
+        };
+    }
+
+    private double squaredChord(double[] query, int index) {
+        final double dx = query[X] - coordinates[X][index];
+        final double dy = query[Y] - coordinates[Y][index];
+        final double dz = query[Z] - coordinates[Z][index];
+        return dx * dx + dy * dy + dz * dz;
+    }
+
+    private void nearest(double[] query, int from, int to, Heap heap) {
+        if (from >= to) {
+            return;
+        }
+        final int mid = (from + to) >>> 1;
+        final int index = tree[mid];
+        heap.offer(index, squaredChord(query, index));
+
+        final double delta = query[axis[mid]] - coordinates[axis[mid]][index];
+        final boolean leftFirst = delta < 0;
+        nearest(query, leftFirst ? from : mid + 1, leftFirst ? mid : to, heap);
+        if (!heap.isFull() || delta * delta <= heap.worst()) {
+            nearest(query, leftFirst ? mid + 1 : from, leftFirst ? to : mid, heap);
+        }
+    }
+
+    private void within(double[] query, double squaredRadius, int from, int to, List<Integer> found) {
+        if (from >= to) {
+            return;
+        }
+        final int mid = (from + to) >>> 1;
+        final int index = tree[mid];
+        if (squaredChord(query, index) <= squaredRadius) {
+            found.add(index);
+        }
+        final double delta = query[axis[mid]] - coordinates[axis[mid]][index];
+        if (delta <= 0 || delta * delta <= squaredRadius) {
+            within(query, squaredRadius, from, mid, found);
+        }
+        if (delta >= 0 || delta * delta <= squaredRadius) {
+            within(query, squaredRadius, mid + 1, to, found);
+        }
+    }
+
+    /**
+     * Build the tree on [from, to) : the median on the widest axis goes in the middle.
+     */
+    private void build(int from, int to) {
+        if (to - from <= 1) {
+            return;
+        }
+        final int dimension = widestAxis(from, to);
+        final int mid = (from + to) >>> 1;
+        select(coordinates[dimension], from, to - 1, mid);
+        axis[mid] = (byte) dimension;
+        build(from, mid);
+        build(mid + 1, to);
+    }
+
+    private int widestAxis(int from, int to) {
+        int dimension = X;
+        double widest = -1;
+        for (int d = X; d <= Z; d++) {
+            double min = Double.POSITIVE_INFINITY;
+            double max = Double.NEGATIVE_INFINITY;
+            for (int i = from; i < to; i++) {
+                final double value = coordinates[d][tree[i]];
+                min = Math.min(min, value);
+                max = Math.max(max, value);
+            }
+            if (max - min > widest) {
+                widest = max - min;
+                dimension = d;
+            }
+        }
+        return dimension;
+    }
+
+    /**
+     * Quickselect : put the k-th smallest value of [left, right] at k, the smaller before and the greater after.
+     */
+    private void select(double[] values, int left, int right, int k) {
+        while (left < right) {
+            final double pivot = values[tree[(left + right) >>> 1]];
+            int i = left;
+            int j = right;
+            while (i <= j) {
+                while (values[tree[i]] < pivot) {
+                    i++;
+                }
+                while (values[tree[j]] > pivot) {
+                    j--;
+                }
+                if (i <= j) {
+                    final int swap = tree[i];
+                    tree[i] = tree[j];
+                    tree[j] = swap;
+                    i++;
+                    j--;
+                }
+            }
+            if (k <= j) {
+                right = j;
+            } else if (k >= i) {
+                left = i;
+            } else {
+                return;
+            }
+        }
+    }
+
+    /**
+     * Bounded max-heap of the best squared chords found, the ties are broken by insertion position.
+     */
+    private static final class Heap {
+        private final int[] indexes;
+        private final double[] values;
+        private int size = 0;
+
+        private Heap(int capacity) {
+            this.indexes = new int[capacity];
+            this.values = new double[capacity];
+        }
+
+        private boolean isFull() {
+            return size == indexes.length;
+        }
+
+        private double worst() {
+            return values[0];
+        }
+
+        private boolean greater(int a, int b) {
+            final int compare = Double.compare(values[a], values[b]);
+            return compare > 0 || (compare == 0 && indexes[a] > indexes[b]);
+        }
+
+        private void offer(int index, double value) {
+            if (!isFull()) {
+                indexes[size] = index;
+                values[size] = value;
+                int child = size++;
+                while (child > 0) {
+                    final int parent = (child - 1) >>> 1;
+                    if (!greater(child, parent)) {
+                        break;
+                    }
+                    swap(child, parent);
+                    child = parent;
+                }
+                return;
+            }
+            if (value > values[0] || (value == values[0] && index > indexes[0])) {
+                return;
+            }
+            indexes[0] = index;
+            values[0] = value;
+            int parent = 0;
+            while (true) {
+                final int left = 2 * parent + 1;
+                final int right = left + 1;
+                int largest = parent;
+                if (left < size && greater(left, largest)) {
+                    largest = left;
+                }
+                if (right < size && greater(right, largest)) {
+                    largest = right;
+                }
+                if (largest == parent) {
+                    return;
+                }
+                swap(parent, largest);
+                parent = largest;
+            }
+        }
+
+        private void swap(int a, int b) {
+            final int index = indexes[a];
+            indexes[a] = indexes[b];
+            indexes[b] = index;
+            final double value = values[a];
+            values[a] = values[b];
+            values[b] = value;
+        }
+
+        private int[] sorted() {
+            final int[] order = Utils.Indexes.identity(size);
+            Utils.Indexes.sort(order, 0, size, (a, b) -> {
+                final int compare = Double.compare(values[a], values[b]);
+                return compare != 0 ? compare : Integer.compare(indexes[a], indexes[b]);
+            });
+            final int[] sorted = new int[size];
+            for (int i = 0; i < size; i++) {
+                sorted[i] = indexes[order[i]];
+            }
+            return sorted;
+        }
+    }
+}
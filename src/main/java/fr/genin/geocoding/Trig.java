@@ -0,0 +1,116 @@
+package fr.genin.geocoding;
+
+import fr.genin.geocoding.Utils.Doubles;
+
+/**
+ * Polynomial approximations of the trigonometric functions used by the haversine of {@link Distances.Precision#FAST}.
+ * <p>
+ * The polynomials are Chebyshev interpolations, evaluated with the Horner scheme so the same operations can be written
+ * with vectors (see {@link BulkKernel}). Only multiplications, additions, an rint and an sqrt are used.
+ * <ul>
+ * <li>sin(x) = x * SIN(x²) on [-pi/2, pi/2], absolute error below 1.2e-15.</li>
+ * <li>asin(x) = x * ASIN(x²) on [0, 0.5], absolute error below 6e-16 ; above 0.5 the identity
+ * asin(x) = pi/2 - 2 asin(sqrt((1 - x) / 2)) is used.</li>
+ * <li>the cosines of the lattitudes are the ones of {@link Math#cos(double)}, precomputed once per point.</li>
+ * </ul>
+ * An central angle computed from them differs from the one of {@link Math} by less than 1e-14 radian, which is less
+ * than 0.1 micrometre on the earth : the error of {@link #MAX_ERROR_METRES} is mostly an safety margin.
+ */
+final class Trig {
+
+    /**
+     * The documented maximum error of an distance, in metres.
+     */
+    static final double MAX_ERROR_METRES = 0.001;
+
+    static final double HALF_PI = Math.PI / 2;
+    static final double HALF_DEG2RAD = Math.PI / 360;
+    static final double INV_PI = 1 / Math.PI;
+
+    static final double[] SIN = {
+            0.9999999999999991, -0.16666666666665045, 0.00833333333325888, -0.0001984126982497507,
+            2.755731706124959e-06, -2.5051926442031437e-08, 1.6049841345208152e-10, -7.396739130027481e-13
+    };
+
+    static final double[] ASIN = {
+            0.9999999999999991, 0.16666666666711377, 0.07499999994621358, 0.04464285995466829,
+            0.030381859371724808, 0.022373871591601834, 0.017328817630186674, 0.014196282873551052,
+            0.010041356086730954, 0.016170183817545578, -0.008061726888020836, 0.02880859375
+    };
+
+    private Trig() {
+    }
+
+    /**
+     * The value of an polynomial.
+     */
+    static double horner(double[] coefficients, double x) {
+        double result = coefficients[coefficients.length - 1];
+        for (int i = coefficients.length - 2; i >= 0; i--) {
+            result = result * x + coefficients[i];
+        }
+        return result;
+    }
+
+    /**
+     * The square of the sine of the half of an angle.
+     *
+     * @param degrees the angle in degrees.
+     * @return sin²(angle / 2).
+     */
+    static double halfSin2(double degrees) {
+        double x = degrees * HALF_DEG2RAD;
+        // sin² has an period of pi : back to [-pi/2, pi/2].
+        x = x - Math.PI * Math.rint(x * INV_PI);
+        final double sin = x * horner(SIN, x * x);
+        return sin * sin;
+    }
+
+    /**
+     * The cosine of an lattitude, computed as {@link PointSet} and {@link Distances.Reference} precompute it : an point
+     * gets the same key from an single coordinate and from an set.
+     *
+     * @param degrees the lattitude in degrees.
+     * @return the cosine.
+     */
+    static double cosLat(double degrees) {
+        return Math.cos(Doubles.deg2rad(degrees));
+    }
+
+    /**
+     * The arc sine of an value of [0, 1].
+     */
+    static double asin(double x) {
+        if (x <= 0.5) {
+            return x * horner(ASIN, x * x);
+        }
+        final double y = Math.sqrt((1 - x) / 2);
+        return HALF_PI - 2 * y * horner(ASIN, y * y);
+    }
+
+    /**
+     * The haversine of the central angle between two points, growing with the distance.
+     *
+     * @param lat1    the lattitude of the first point, in degrees.
+     * @param cosLat1 the cosine of this lattitude.
+     * @param lon1    the longitude of the first point, in degrees.
+     * @param lat2    the lattitude of the second point, in degrees.
+     * @param cosLat2 the cosine of this lattitude.
+     * @param lon2    the longitude of the second point, in degrees.
+     * @return the haversine, in [0, 1].
+     */
+    static double haversine(double lat1, double cosLat1, double lon1, double lat2, double cosLat2, double lon2) {
+        final double a = halfSin2(lat2 - lat1) + cosLat1 * cosLat2 * halfSin2(lon2 - lon1);
+        return Math.min(1.0, a);
+    }
+
+    /**
+     * The central angle of an haversine.
+     *
+     * @param haversine the haversine.
+     * @return the angle in radians.
+     */
+    static double angle(double haversine) {
+        return 2 * asin(Math.sqrt(haversine));
+    }
+}
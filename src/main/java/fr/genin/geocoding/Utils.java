@@ -1,8 +1,10 @@
 package fr.genin.geocoding;
 
 import java.util.*;
-import java.util.concurrent.ConcurrentHashMap;
-import java.util.function.Function;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import java.util.function.IntBinaryOperator;
+import java.util.function.IntConsumer;
 import java.util.stream.Collectors;
 
 final class Utils {
@@ -21,7 +23,7 @@ final class Utils {
          * @param rad the radian value
          * @return the degree value.
          */
-        public static Double rad2deg(Double rad) {
+        public static double rad2deg(double rad) {
             return rad * 180.0 / Math.PI;
         }
 
@@ -30,32 +32,274 @@ final class Utils {
          * @param deg the  value
          * @return the degree value.
          */
-        public static Double deg2rad(Double deg) {
+        public static double deg2rad(double deg) {
 
             return deg * Math.PI / 180.0;
         }
+
+        /**
+         * Bound a cosine to [-1, 1], rounding can push it slightly outside for very close points.
+         * @param cos the value
+         * @return the bounded value.
+         */
+        public static double clamp(double cos) {
+            return Math.max(-1.0, Math.min(1.0, cos));
+        }
     }
 
 
-    static class CacheBuilder<Key, Values> {
-        private final Map<Key, Values> map = new ConcurrentHashMap<>();
-        private final Function<Key, Values> populate;
+    /**
+     * Index arrays Utils.
+     */
+    static class Indexes {
+        private static final int INSERTION_SORT_THRESHOLD = 32;
 
-        CacheBuilder(Function<Key, Values> populate) {
-            this.populate = populate;
+        /**
+         * Create the identity permutation.
+         * @param size the size
+         * @return the indexes 0 to size - 1.
+         */
+        static int[] identity(int size) {
+            final int[] indexes = new int[size];
+            for (int i = 0; i < size; i++) {
+                indexes[i] = i;
+            }
+            return indexes;
         }
 
-        Values get(Key key) {
-            return Optional.ofNullable(map.get(key))
-                    .orElseGet(() -> {
-                        Values apply = populate.apply(key);
-                        map.put(key, apply);
-                        return apply;
-                    });
+        /**
+         * Stable merge sort of an index array, the comparator receives the indexes to compare.
+         * @param indexes the indexes
+         * @param from first index, inclusive
+         * @param to last index, exclusive
+         * @param comparator the comparator on the indexes.
+         */
+        static void sort(int[] indexes, int from, int to, IntBinaryOperator comparator) {
+            final int[] buffer = Arrays.copyOfRange(indexes, from, to);
+            mergeSort(buffer, 0, indexes, from, to - from, comparator);
         }
 
-    }
+        /**
+         * Sort src into dst, both contains the same values at the start.
+         */
+        private static void mergeSort(int[] src, int srcFrom, int[] dst, int dstFrom, int length, IntBinaryOperator comparator) {
+            if (length <= INSERTION_SORT_THRESHOLD) {
+                for (int i = dstFrom + 1; i < dstFrom + length; i++) {
+                    final int value = dst[i];
+                    int j = i - 1;
+                    while (j >= dstFrom && comparator.applyAsInt(dst[j], value) > 0) {
+                        dst[j + 1] = dst[j];
+                        j--;
+                    }
+                    dst[j + 1] = value;
+                }
+                return;
+            }
+            final int half = length >>> 1;
+            mergeSort(dst, dstFrom, src, srcFrom, half, comparator);
+            mergeSort(dst, dstFrom + half, src, srcFrom + half, length - half, comparator);
+            merge(src, srcFrom, half, length, dst, dstFrom, comparator);
+        }
+
+        /**
+         * Stable merge sort of an index array, forked in an pool : the halves are sorted and merged in parallel.
+         * @param indexes the indexes
+         * @param comparator the comparator on the indexes, called from several threads.
+         * @param pool the pool.
+         * @param threshold the length under which an range is sorted or merged sequentially.
+         */
+        static void parallelSort(int[] indexes, IntBinaryOperator comparator, ForkJoinPool pool, int threshold) {
+            final int leaf = Math.max(threshold, INSERTION_SORT_THRESHOLD);
+            if (indexes.length <= leaf) {
+                sort(indexes, 0, indexes.length, comparator);
+                return;
+            }
+            final int[] buffer = indexes.clone();
+            pool.invoke(new SortTask(buffer, 0, indexes, 0, indexes.length, comparator, leaf));
+        }
+
+        /**
+         * Apply an action on each index of an range, forked in an pool by chunks of threshold indexes.
+         * @param pool the pool.
+         * @param size the size of the range.
+         * @param threshold the length of the chunks.
+         * @param action the action.
+         */
+        static void forEach(ForkJoinPool pool, int size, int threshold, IntConsumer action) {
+            pool.invoke(new ForEachTask(0, size, Math.max(1, threshold), action));
+        }
+
+        /**
+         * The parallel version of {@link #mergeSort(int[], int, int[], int, int, IntBinaryOperator)}.
+         */
+        private static final class SortTask extends RecursiveAction {
+            private static final long serialVersionUID = 1L;
 
+            private final int[] src;
+            private final int srcFrom;
+            private final int[] dst;
+            private final int dstFrom;
+            private final int length;
+            private final IntBinaryOperator comparator;
+            private final int threshold;
+
+            private SortTask(int[] src, int srcFrom, int[] dst, int dstFrom, int length, IntBinaryOperator comparator, int threshold) {
+                this.src = src;
+                this.srcFrom = srcFrom;
+                this.dst = dst;
+                this.dstFrom = dstFrom;
+                this.length = length;
+                this.comparator = comparator;
+                this.threshold = threshold;
+            }
+
+            @Override
+            protected void compute() {
+                if (length <= threshold) {
+                    mergeSort(src, srcFrom, dst, dstFrom, length, comparator);
+                    return;
+                }
+                final int half = length >>> 1;
+                invokeAll(new SortTask(dst, dstFrom, src, srcFrom, half, comparator, threshold),
+                        new SortTask(dst, dstFrom + half, src, srcFrom + half, length - half, comparator, threshold));
+                new MergeTask(src, srcFrom, srcFrom + half, srcFrom + half, srcFrom + length, dst, dstFrom, comparator, threshold).compute();
+            }
+        }
+
+        /**
+         * Stable merge of two sorted runs of src into dst. The larger run is split on its middle, the other one on
+         * the position of this middle, and the two halves are merged in parallel.
+         */
+        private static final class MergeTask extends RecursiveAction {
+            private static final long serialVersionUID = 1L;
+
+            private final int[] src;
+            private final int leftFrom;
+            private final int leftTo;
+            private final int rightFrom;
+            private final int rightTo;
+            private final int[] dst;
+            private final int dstFrom;
+            private final IntBinaryOperator comparator;
+            private final int threshold;
+
+            private MergeTask(int[] src, int leftFrom, int leftTo, int rightFrom, int rightTo, int[] dst, int dstFrom,
+                              IntBinaryOperator comparator, int threshold) {
+                this.src = src;
+                this.leftFrom = leftFrom;
+                this.leftTo = leftTo;
+                this.rightFrom = rightFrom;
+                this.rightTo = rightTo;
+                this.dst = dst;
+                this.dstFrom = dstFrom;
+                this.comparator = comparator;
+                this.threshold = threshold;
+            }
+
+            @Override
+            protected void compute() {
+                final int leftLength = leftTo - leftFrom;
+                final int rightLength = rightTo - rightFrom;
+                if (leftLength + rightLength <= threshold) {
+                    merge(src, leftFrom, leftTo, rightFrom, rightTo, dst, dstFrom, comparator);
+                    return;
+                }
+                final int leftSplit;
+                final int rightSplit;
+                if (leftLength >= rightLength) {
+                    leftSplit = (leftFrom + leftTo) >>> 1;
+                    // the equal values of the right run stay after the left one.
+                    rightSplit = search(src, rightFrom, rightTo, src[leftSplit], comparator, 0);
+                } else {
+                    rightSplit = (rightFrom + rightTo) >>> 1;
+                    leftSplit = search(src, leftFrom, leftTo, src[rightSplit], comparator, 1);
+                }
+                final int dstSplit = dstFrom + (leftSplit - leftFrom) + (rightSplit - rightFrom);
+                invokeAll(new MergeTask(src, leftFrom, leftSplit, rightFrom, rightSplit, dst, dstFrom, comparator, threshold),
+                        new MergeTask(src, leftSplit, leftTo, rightSplit, rightTo, dst, dstSplit, comparator, threshold));
+            }
+
+            /**
+             * The first position of the sorted range whose value compares to the value at least to bound.
+             */
+            private static int search(int[] src, int from, int to, int value, IntBinaryOperator comparator, int bound) {
+                int low = from;
+                int high = to;
+                while (low < high) {
+                    final int mid = (low + high) >>> 1;
+                    if (comparator.applyAsInt(src[mid], value) < bound) {
+                        low = mid + 1;
+                    } else {
+                        high = mid;
+                    }
+                }
+                return low;
+            }
+        }
+
+        private static final class ForEachTask extends RecursiveAction {
+            private static final long serialVersionUID = 1L;
+
+            private final int from;
+            private final int to;
+            private final int threshold;
+            private final IntConsumer action;
+
+            private ForEachTask(int from, int to, int threshold, IntConsumer action) {
+                this.from = from;
+                this.to = to;
+                this.threshold = threshold;
+                this.action = action;
+            }
+
+            @Override
+            protected void compute() {
+                if (to - from <= threshold) {
+                    for (int i = from; i < to; i++) {
+                        action.accept(i);
+                    }
+                    return;
+                }
+                final int mid = (from + to) >>> 1;
+                invokeAll(new ForEachTask(from, mid, threshold, action), new ForEachTask(mid, to, threshold, action));
+            }
+        }
+
+        /**
+         * Merge two sorted runs of src into dst, the left run first for the equal values.
+         */
+        private static void merge(int[] src, int left, int leftEnd, int right, int rightEnd, int[] dst, int dstFrom,
+                                  IntBinaryOperator comparator) {
+            for (int i = dstFrom; left < leftEnd || right < rightEnd; i++) {
+                if (right >= rightEnd || (left < leftEnd && comparator.applyAsInt(src[left], src[right]) <= 0)) {
+                    dst[i] = src[left++];
+                } else {
+                    dst[i] = src[right++];
+                }
+            }
+        }
+
+        /**
+         * Merge the two sorted halves of src into dst.
+         */
+        static void merge(int[] src, int srcFrom, int half, int length, int[] dst, int dstFrom, IntBinaryOperator comparator) {
+            int left = srcFrom;
+            int right = srcFrom + half;
+            final int leftEnd = right;
+            final int rightEnd = srcFrom + length;
+            if (comparator.applyAsInt(src[leftEnd - 1], src[right]) <= 0) {
+                System.arraycopy(src, srcFrom, dst, dstFrom, length);
+                return;
+            }
+            for (int i = dstFrom; i < dstFrom + length; i++) {
+                if (right >= rightEnd || (left < leftEnd && comparator.applyAsInt(src[left], src[right]) <= 0)) {
+                    dst[i] = src[left++];
+                } else {
+                    dst[i] = src[right++];
+                }
+            }
+        }
+    }
 
     public static class Splitter {
         private final String split;
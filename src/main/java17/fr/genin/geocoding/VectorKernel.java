@@ -0,0 +1,73 @@
+package fr.genin.geocoding;
+
+import jdk.incubator.vector.DoubleVector;
+import jdk.incubator.vector.VectorMask;
+import jdk.incubator.vector.VectorOperators;
+import jdk.incubator.vector.VectorSpecies;
+
+/**
+ * The {@link BulkKernel} written with the Vector API : the same operations than {@link Trig}, on all the lanes at
+ * once. The branch of the arc sine is computed on both sides and blended.
+ */
+final class VectorKernel extends BulkKernel {
+
+    private static final VectorSpecies<Double> SPECIES = DoubleVector.SPECIES_PREFERRED;
+    /**
+     * Adding then removing 1.5 * 2^52 rounds to the nearest integer, as {@link Math#rint(double)}.
+     */
+    private static final double RINT = 6755399441055744.0;
+
+    private final BulkKernel tail = new BulkKernel.Scalar();
+
+    private VectorKernel() {
+    }
+
+    /**
+     * The kernel of this cpu.
+     *
+     * @return the kernel, or null if the cpu has no vector of several doubles.
+     */
+    static BulkKernel create() {
+        return (SPECIES.length() < 2) ? null : new VectorKernel();
+    }
+
+    @Override
+    void distances(double refLat, double refCosLat, double refLon, double[] lats, double[] cosLats, double[] lons,
+                   double scale, double[] out, int from, int to) {
+        final int upper = from + SPECIES.loopBound(to - from);
+        int i = from;
+        for (; i < upper; i += SPECIES.length()) {
+            final DoubleVector lat = DoubleVector.fromArray(SPECIES, lats, i);
+            final DoubleVector cosLat = DoubleVector.fromArray(SPECIES, cosLats, i);
+            final DoubleVector lon = DoubleVector.fromArray(SPECIES, lons, i);
+            final DoubleVector a = halfSin2(lat.sub(refLat))
+                    .add(cosLat.mul(refCosLat).mul(halfSin2(lon.sub(refLon))))
+                    .min(1.0);
+            asin(a.sqrt()).mul(2 * scale).intoArray(out, i);
+        }
+        tail.distances(refLat, refCosLat, refLon, lats, cosLats, lons, scale, out, i, to);
+    }
+
+    private static DoubleVector halfSin2(DoubleVector degrees) {
+        DoubleVector x = degrees.mul(Trig.HALF_DEG2RAD);
+        final DoubleVector k = x.mul(Trig.INV_PI).add(RINT).sub(RINT);
+        x = x.sub(k.mul(Math.PI));
+        final DoubleVector sin = x.mul(horner(Trig.SIN, x.mul(x)));
+        return sin.mul(sin);
+    }
+
+    private static DoubleVector asin(DoubleVector x) {
+        final VectorMask<Double> large = x.compare(VectorOperators.GT, 0.5);
+        final DoubleVector y = x.blend(x.neg().add(1.0).div(2.0).sqrt(), large);
+        final DoubleVector p = y.mul(horner(Trig.ASIN, y.mul(y)));
+        return p.blend(p.mul(-2.0).add(Trig.HALF_PI), large);
+    }
+
+    private static DoubleVector horner(double[] coefficients, DoubleVector x) {
+        DoubleVector result = DoubleVector.broadcast(SPECIES, coefficients[coefficients.length - 1]);
+        for (int i = coefficients.length - 2; i >= 0; i--) {
+            result = result.mul(x).add(coefficients[i]);
+        }
+        return result;
+    }
+}
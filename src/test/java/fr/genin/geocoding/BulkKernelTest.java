@@ -0,0 +1,80 @@
+package fr.genin.geocoding;
+
+import org.junit.Test;
+
+import java.util.Random;
+
+import static org.assertj.core.api.Assertions.*;
+
+/**
+ * Test class for the polynomial trigonometry and the bulk kernels.
+ */
+public class BulkKernelTest {
+
+    private static final double METRES_PER_MILE = 1609.344;
+
+    @Test
+    public void polynomials() {
+        for (int i = -1000; i <= 1000; i++) {
+            final double x = Trig.HALF_PI * i / 1000;
+            assertThat(x * Trig.horner(Trig.SIN, x * x)).isCloseTo(Math.sin(x), within(1.2e-15));
+        }
+        for (int i = 0; i <= 1000; i++) {
+            final double x = i / 1000.0;
+            assertThat(Trig.asin(x)).isCloseTo(Math.asin(x), within(1e-14));
+        }
+        for (int i = -720; i <= 720; i++) {
+            final double sin = Math.sin(Math.toRadians(i / 2.0));
+            assertThat(Trig.halfSin2(i)).isCloseTo(sin * sin, within(1e-14));
+        }
+    }
+
+    @Test
+    public void scalarMatchesHaversine() {
+        final Random random = new Random(3);
+        final int size = 10000;
+        final double[] lats = new double[size];
+        final double[] cosLats = new double[size];
+        final double[] lons = new double[size];
+        for (int i = 0; i < size; i++) {
+            lats[i] = random.nextDouble() * 180 - 90;
+            cosLats[i] = Math.cos(Math.toRadians(lats[i]));
+            lons[i] = random.nextDouble() * 360 - 180;
+        }
+        lats[7] = Double.NaN;
+        final double refLat = 46.348164;
+        final double refLon = -0.387781;
+        final double[] miles = new double[size];
+        new BulkKernel.Scalar().distances(refLat, Math.cos(Math.toRadians(refLat)), refLon, lats, cosLats, lons,
+                Distances.MILES_PER_RADIAN, miles, 0, size);
+
+        final Distances.Reference exact = Distances.reference(refLat, refLon, Distances.Formula.HAVERSINE);
+        for (int i = 0; i < size; i++) {
+            if (i == 7) {
+                assertThat(miles[i]).isNaN();
+                continue;
+            }
+            final double error = Math.abs(miles[i] - exact.milesTo(lats[i], lons[i])) * METRES_PER_MILE;
+            assertThat(error).isLessThan(Trig.MAX_ERROR_METRES);
+        }
+    }
+
+    /**
+     * Out of the packaged jar, the instance is the scalar kernel : the vector one is tested by {@link VectorKernelIT}.
+     */
+    @Test
+    public void fastMilesToMatchesScalar() {
+        final Random random = new Random(5);
+        final PointSet.Builder<Integer> builder = PointSet.builder(1001);
+        for (int i = 0; i < 1001; i++) {
+            builder.add(i, 41 + random.nextDouble() * 10, -5 + random.nextDouble() * 13);
+        }
+        final PointSet<Integer> set = builder.build();
+        final Distances.Reference reference = Distances.reference(46.348164, -0.387781);
+        final double[] fast = reference.fastMilesTo(set);
+        final double[] scalar = new double[set.size()];
+        new BulkKernel.Scalar().distances(reference.getLat(), Math.cos(Utils.Doubles.deg2rad(reference.getLat())),
+                reference.getLon(), set.lats(), set.cosLats(), set.lons(), Distances.MILES_PER_RADIAN, scalar, 0, scalar.length);
+        assertThat(fast).containsExactly(scalar);
+    }
+}
@@ -0,0 +1,120 @@
+package fr.genin.geocoding;
+
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+import java.io.File;
+import java.nio.file.Files;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import fr.genin.geocoding.Utils.Splitter;
+
+import static org.assertj.core.api.Assertions.*;
+
+/**
+ * Test class for DeptIndex.
+ */
+public class DeptIndexTest {
+
+    private static final double LAT = 46.246992;
+    private static final double LON = 0.832142;
+
+    private static List<Commune> communes;
+    private static DeptIndex<Commune> index;
+
+    @BeforeClass
+    public static void load() throws Exception {
+        final Splitter splitter = Splitter.on(';');
+        communes = Files.readAllLines(new File(DeptIndexTest.class
+                .getResource("/eucircos_regions_departements_circonscriptions_communes_gps.csv").toURI()).toPath())
+                .stream().map(s -> {
+                    final List<String> strings = splitter.splitToList(s);
+                    final Commune commune = new Commune();
+                    commune.setName(strings.get(8));
+                    if (strings.size() >= 13) {
+                        commune.setLatitude(parse(strings.get(11)));
+                        commune.setLongitude(parse(strings.get(12)));
+                    }
+                    commune.setCodes_postaux(strings.get(9));
+                    return commune;
+                }).collect(Collectors.toList());
+        index = DeptIndex.of(communes, Commune::getCodes_postaux, DeptIndexTest::point);
+    }
+
+    private static Double parse(String s) {
+        try {
+            return Double.valueOf(s);
+        } catch (NumberFormatException nbe) {
+            return null;
+        }
+    }
+
+    private static Point<Commune> point(Commune c) {
+        return Point.builder(c).lat(c.getLatitude()).lon(c.getLongitude()).build();
+    }
+
+    private static List<Commune> filterThenSort(Distances.Sorter<Commune> sorter, Depts.Limitroph limitroph, int hops) {
+        final List<Commune> filtered = communes.stream()
+                .filter(limitroph.predicate(hops, Commune::getCodes_postaux))
+                .collect(Collectors.toList());
+        return sorter.sort(filtered, DeptIndexTest::point);
+    }
+
+    @Test
+    public void sameAsFilter() {
+        final Depts.Limitroph limitroph = Depts.limitroph("86");
+        final List<Commune> filtered = communes.stream()
+                .filter(limitroph.predicate(Commune::getCodes_postaux))
+                .collect(Collectors.toList());
+        final List<Commune> expected = Distances.<Commune>sorter(LAT, LON).sort(filtered, DeptIndexTest::point);
+        final List<Commune> sorted = index.sort(Distances.<Commune>sorter(LAT, LON), limitroph);
+        assertThat(sorted).containsExactlyElementsOf(expected);
+        assertThat(sorted.stream().limit(5).map(Commune::getCodes_postaux).collect(Collectors.toList()))
+                .startsWith("86430", "87320", "86430", "87330", "87330");
+    }
+
+    @Test
+    public void sameAsFilterWithOptions() {
+        final Comparator<Commune> byName = Comparator.comparing(Commune::getName);
+        for (String dept : Arrays.asList("75", "2A", "971", "33")) {
+            for (int hops = 0; hops <= 2; hops++) {
+                final Depts.Limitroph limitroph = Depts.limitroph(dept);
+                assertThat(index.sort(Distances.<Commune>sorter(LAT, LON).desc().nullsFirst(), limitroph, hops))
+                        .containsExactlyElementsOf(filterThenSort(Distances.<Commune>sorter(LAT, LON).desc().nullsFirst(), limitroph, hops));
+                assertThat(index.sort(Distances.<Commune>sorter(LAT, LON).withSubComparatorOfPoints(byName), limitroph, hops))
+                        .containsExactlyElementsOf(filterThenSort(Distances.<Commune>sorter(LAT, LON).withSubComparatorOfPoints(byName), limitroph, hops));
+            }
+        }
+    }
+
+    @Test
+    public void nearest() {
+        final Depts.Limitroph limitroph = Depts.limitroph("86");
+        final List<Commune> sorted = index.sort(Distances.<Commune>sorter(LAT, LON), limitroph);
+        assertThat(index.nearest(Distances.<Commune>sorter(LAT, LON), limitroph, 5)).containsExactlyElementsOf(sorted.subList(0, 5));
+        assertThat(index.nearest(Distances.<Commune>sorter(LAT, LON), limitroph, 0)).isEmpty();
+        final List<Commune> farthest = index.sort(Distances.<Commune>sorter(LAT, LON).desc().nullsFirst(), limitroph);
+        assertThat(index.nearest(Distances.<Commune>sorter(LAT, LON).desc().nullsFirst(), limitroph, 300))
+                .containsExactlyElementsOf(farthest.subList(0, 300));
+        assertThat(index.nearest(Distances.<Commune>sorter(LAT, LON), limitroph, Integer.MAX_VALUE)).hasSameSizeAs(sorted);
+    }
+
+    @Test
+    public void buckets() {
+        assertThat(index.size()).isLessThanOrEqualTo(communes.size());
+        assertThat(index.points("2A").size()).isEqualTo(index.points("20").size()).isGreaterThan(0);
+        assertThat(index.points("unknown").isEmpty()).isTrue();
+        assertThat(index.sort(Distances.<Commune>sorter(LAT, LON), Depts.limitroph("unknown"))).isEmpty();
+        for (Point<Commune> pt : index.points("86")) {
+            assertThat(pt.getData().getCodes_postaux()).startsWith("86");
+        }
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void negativeNearest() {
+        index.nearest(Distances.<Commune>sorter(LAT, LON), Depts.limitroph("86"), -1);
+    }
+}
@@ -0,0 +1,90 @@
+package fr.genin.geocoding;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+
+import static org.assertj.core.api.Assertions.*;
+
+/**
+ * Test class for DistanceMatrix.
+ */
+public class DistanceMatrixTest {
+
+    @SuppressWarnings("unchecked")
+    private static final List<Point<String>> DEPOTS = Arrays.asList(
+            Point.builder("POITIERS").lat(46.580119).lon(0.340751).build(),
+            Point.builder("NIORT").lat(46.323810).lon(-0.464679).build()
+    );
+
+    @SuppressWarnings("unchecked")
+    private static final List<Point<String>> COMMUNES = Arrays.asList(
+            Point.builder("LA ROCHELLE").lat(46.159765).lon(-1.151780).build(),
+            Point.builder("CHAURAY").lat(46.348164).lon(-0.387781).build(),
+            Point.builder("EMPTY").lat(46.159765).build()
+    );
+
+    @Test
+    public void matrix() {
+        final DistanceMatrix matrix = Distances.matrix(DEPOTS, COMMUNES, Distances.Unit.KILOMETERS);
+        assertThat(matrix.rows()).isEqualTo(2);
+        assertThat(matrix.columns()).isEqualTo(3);
+        assertThat(matrix.getUnit()).isEqualTo(Distances.Unit.KILOMETERS);
+        assertThat(matrix.values()).hasSize(6);
+        for (int i = 0; i < DEPOTS.size(); i++) {
+            for (int j = 0; j < 2; j++) {
+                final Point<String> depot = DEPOTS.get(i);
+                final Point<String> commune = COMMUNES.get(j);
+                assertThat(matrix.get(i, j)).isCloseTo(Distances.kilometerBetween(depot.latValue(), depot.lonValue(),
+                        commune.latValue(), commune.lonValue()), within(1e-6));
+            }
+            assertThat(matrix.get(i, 2)).isNaN();
+        }
+        assertThat(matrix.row(1)).hasSize(3);
+        assertThat(matrix.row(1)[0]).isEqualTo(matrix.get(1, 0));
+    }
+
+    @Test
+    public void units() {
+        final double miles = Distances.matrix(DEPOTS, COMMUNES, Distances.Unit.MILES).get(0, 0);
+        assertThat(miles).isCloseTo(Distances.milesBetween(46.580119, 0.340751, 46.159765, -1.151780), within(1e-6));
+        assertThat(Distances.matrix(DEPOTS, COMMUNES, Distances.Unit.NAUTIC).get(0, 0))
+                .isCloseTo(miles * Distances.MILES2NAUTIC, within(1e-6));
+    }
+
+    @Test
+    public void empty() {
+        final DistanceMatrix matrix = Distances.matrix(DEPOTS, Collections.<Point<String>>emptyList(), Distances.Unit.MILES);
+        assertThat(matrix.rows()).isEqualTo(2);
+        assertThat(matrix.columns()).isEqualTo(0);
+        assertThat(matrix.values()).isEmpty();
+    }
+
+    @Test(expected = IndexOutOfBoundsException.class)
+    public void outOfBounds() {
+        Distances.matrix(DEPOTS, COMMUNES, Distances.Unit.MILES).get(0, 3);
+    }
+
+    @Test
+    public void parallelOfSet() {
+        final Random random = new Random(7);
+        final List<Point<Integer>> points = new ArrayList<>();
+        for (int i = 0; i < 300; i++) {
+            points.add(Point.builder(i).lat(41 + random.nextDouble() * 10).lon(-5 + random.nextDouble() * 13).build());
+        }
+        final PointSet<Integer> set = PointSet.of(points);
+        final DistanceMatrix matrix = Distances.matrix(set, set, Distances.Unit.MILES);
+        assertThat((long) matrix.rows() * matrix.columns()).isGreaterThan(DistanceMatrix.PARALLEL_THRESHOLD);
+        for (int i = 0; i < points.size(); i += 7) {
+            for (int j = 0; j < points.size(); j += 11) {
+                assertThat(matrix.get(i, j)).isCloseTo(Distances.milesBetween(points.get(i).latValue(),
+                        points.get(i).lonValue(), points.get(j).latValue(), points.get(j).lonValue()), within(1e-6));
+            }
+            assertThat(matrix.get(i, i)).isCloseTo(0.0, within(1e-3));
+        }
+    }
+}
@@ -4,6 +4,10 @@ import static org.junit.Assert.*;
 
 import org.junit.Test;
 
+import java.util.Arrays;
+import java.util.List;
+import java.util.stream.Collectors;
+
 /**
  * Class Test of Distance.
  */
@@ -52,4 +56,63 @@ public class DistanceTest {
         assertEquals(422.73893139401383, result.kilometer().get().doubleValue(), 0.000000001);
         assertEquals(228.10939614063963, result.nautic().get().doubleValue(), 0.00000000001);
     }
+
+    @Test
+    public void betweenPrimitive() {
+        assertEquals(262.6777938054349, Distances.milesBetween(32.9697, -96.80322, 29.46786, -98.53506), 0.00000000001);
+        assertEquals(422.73893139401383, Distances.kilometerBetween(32.9697, -96.80322, 29.46786, -98.53506), 0.000000001);
+        assertEquals(228.10939614063963, Distances.nauticBetween(32.9697, -96.80322, 29.46786, -98.53506), 0.00000000001);
+        assertEquals(0.0, Distances.milesBetween(46.580119, 0.340751, 46.580119, 0.340751), 0.0);
+    }
+
+    @Test
+    public void primitiveValues() {
+        final Distances.Distance result = Distances.between(32.9697, -96.80322, 29.46786, -98.53506);
+        assertTrue(result.isPresent());
+        assertEquals(result.miles().get(), result.milesValue(), 0.0);
+        assertEquals(result.kilometer().get(), result.kilometerValue(), 0.0);
+        assertEquals(result.nautic().get(), result.nauticValue(), 0.0);
+
+        final Distances.Distance empty = Distances.between(null, -96.80322, 29.46786, -98.53506);
+        assertFalse(empty.isPresent());
+        assertTrue(Double.isNaN(empty.milesValue()));
+        assertTrue(Double.isNaN(empty.kilometerValue()));
+    }
+
+    @Test
+    public void reference() {
+        final Distances.Reference reference = Distances.reference(32.9697, -96.80322);
+        assertEquals(Distances.milesBetween(32.9697, -96.80322, 29.46786, -98.53506), reference.milesTo(29.46786, -98.53506), 0.0);
+        assertEquals(422.73893139401383, reference.kilometerTo(29.46786, -98.53506), 0.000000001);
+        assertEquals(228.10939614063963, reference.nauticTo(29.46786, -98.53506), 0.00000000001);
+        assertFalse(reference.distanceTo(Point.builder("Pt1").lat(29.46786).build()).isPresent());
+
+        final double[] miles = reference.milesTo(new double[]{29.46786, 32.9697}, new double[]{-98.53506, -96.80322});
+        assertEquals(262.6777938054349, miles[0], 0.00000000001);
+        assertEquals(0.0, miles[1], 0.0);
+    }
+
+    @Test
+    public void withinKm() {
+        final Distances.Radius radius = Distances.withinKm(46.348164, -0.387781, 62);
+        assertTrue(radius.test(46.580119, 0.340751));
+        assertTrue(radius.test(46.323810, -0.464679));
+        assertFalse(radius.test(46.159765, -1.151780));
+        assertFalse(radius.test(Double.NaN, -1.151780));
+        assertFalse(radius.test(Point.builder("2").lat(46.159765).build()));
+
+        final List<Data> datas = Arrays.asList(
+                new Data("POITIERS", 46.580119, 0.340751),
+                new Data("NIORT", 46.323810, -0.464679),
+                new Data("LA ROCHELLE", 46.159765, -1.151780));
+        assertEquals(Arrays.asList("POITIERS", "NIORT"), datas.stream()
+                .filter(radius.predicate(d -> Point.builder(d).lat(d.lat).lon(d.lon).build()))
+                .map(d -> d.test).collect(Collectors.toList()));
+        assertEquals(Arrays.asList("POITIERS", "NIORT"), datas.stream()
+                .filter(radius.<Data>predicate(d -> d.lat, d -> d.lon))
+                .map(d -> d.test).collect(Collectors.toList()));
+        assertEquals(Arrays.asList("POITIERS", "NIORT"), datas.parallelStream()
+                .collect(radius.collector(d -> Point.builder(d).lat(d.lat).lon(d.lon).build()))
+                .stream().map(d -> d.test).collect(Collectors.toList()));
+    }
 }
@@ -0,0 +1,87 @@
+package fr.genin.geocoding;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import fr.genin.geocoding.Distances.Formula;
+
+import static org.assertj.core.api.Assertions.*;
+
+/**
+ * Test class for Distances.Formula.
+ */
+public class FormulaTest {
+
+    private static final double LAT = 46.348164;
+    private static final double LON = -0.387781;
+
+    private static List<Point<Integer>> france(int size) {
+        final Random random = new Random(5);
+        final List<Point<Integer>> points = new ArrayList<>();
+        for (int i = 0; i < size; i++) {
+            points.add(Point.builder(i).lat(42 + random.nextDouble() * 9).lon(-5 + random.nextDouble() * 13).build());
+        }
+        return points;
+    }
+
+    @Test
+    public void lawOfCosinesIsTheDefault() {
+        assertThat(Distances.reference(LAT, LON).getFormula()).isEqualTo(Formula.LAW_OF_COSINES);
+        assertThat(Formula.LAW_OF_COSINES.milesBetween(32.9697, -96.80322, 29.46786, -98.53506))
+                .isEqualTo(Distances.milesBetween(32.9697, -96.80322, 29.46786, -98.53506));
+    }
+
+    @Test
+    public void samePoint() {
+        for (Formula formula : Formula.values()) {
+            assertThat(formula.milesBetween(LAT, LON, LAT, LON)).as(formula.name()).isEqualTo(0.0);
+        }
+    }
+
+    @Test
+    public void knownDistances() {
+        // Niort - Poitiers, about 62 km on the sphere.
+        final double cosines = Formula.LAW_OF_COSINES.milesBetween(LAT, LON, 46.580119, 0.340751);
+        assertThat(Formula.HAVERSINE.milesBetween(LAT, LON, 46.580119, 0.340751)).isCloseTo(cosines, offset(1e-6));
+        assertThat(Formula.EQUIRECTANGULAR.milesBetween(LAT, LON, 46.580119, 0.340751)).isCloseTo(cosines, offset(1e-3));
+        assertThat(Formula.VINCENTY.milesBetween(LAT, LON, 46.580119, 0.340751)).isCloseTo(cosines, offset(cosines * 0.005));
+        // Flinders Peak - Buninyong, reference example of Vincenty : 54 972.271 m.
+        assertThat(Formula.VINCENTY.milesBetween(-37.95103341666667, 144.42486788888888, -37.65282113888889, 143.92649552777777) * 1609.344)
+                .isCloseTo(54972.271, offset(0.001));
+        // nearly antipodal points fall back on haversine
+        assertThat(Formula.VINCENTY.milesBetween(0, 0, 0.5, 179.7)).isGreaterThan(12000);
+    }
+
+    @Test
+    public void sorter() {
+        final List<Point<Integer>> points = france(2000);
+        final List<Integer> expected = Distances.<Integer>sorter(LAT, LON).sort(points);
+        assertThat(Distances.<Integer>sorter(LAT, LON).formula(Formula.HAVERSINE).sort(points)).containsExactlyElementsOf(expected);
+        assertThat(Distances.<Integer>sorter(LAT, LON).formula(Formula.EQUIRECTANGULAR).nearest(points, 20))
+                .containsExactlyElementsOf(expected.subList(0, 20));
+    }
+
+    /**
+     * Points around the reference at clearly different distances, in all the directions : every formula must give the
+     * same ordering.
+     */
+    @Test
+    public void sameOrderingOfFixedSample() {
+        final double[] degrees = {2.2, 0.1, 4, 0.6, 1.5, 0.3, 3, 1};
+        final List<Point<Integer>> points = new ArrayList<>();
+        for (int i = 0; i < degrees.length; i++) {
+            final double bearing = Math.toRadians(i * 47);
+            points.add(Point.builder(i)
+                    .lat(LAT + degrees[i] * Math.cos(bearing))
+                    .lon(LON + degrees[i] * Math.sin(bearing) / Math.cos(Math.toRadians(LAT)))
+                    .build());
+        }
+        for (Formula formula : Formula.values()) {
+            assertThat(Distances.<Integer>sorter(LAT, LON).formula(formula).sort(points)).as(formula.name())
+                    .containsExactly(1, 5, 3, 7, 4, 0, 6, 2);
+        }
+    }
+}
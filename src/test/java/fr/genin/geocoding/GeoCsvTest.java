@@ -0,0 +1,152 @@
+package fr.genin.geocoding;
+
+import org.junit.Test;
+
+import java.io.File;
+import java.net.URISyntaxException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Random;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import fr.genin.geocoding.Utils.Splitter;
+
+import static org.assertj.core.api.Assertions.*;
+
+/**
+ * Test class for GeoCsv.
+ */
+public class GeoCsvTest {
+
+    private static Path communes() throws URISyntaxException {
+        return new File(GeoCsvTest.class.getResource("/eucircos_regions_departements_circonscriptions_communes_gps.csv").toURI()).toPath();
+    }
+
+    private static GeoCsv loader() {
+        return GeoCsv.on(';').lat(11).lon(12).withHeader();
+    }
+
+    private static Commune commune(GeoCsv.Row row) {
+        final Commune commune = new Commune();
+        commune.setName(row.get(8));
+        commune.setCodes_postaux(row.get(9));
+        return commune;
+    }
+
+    private static Double valueOf(String s) {
+        try {
+            return Double.valueOf(s);
+        } catch (NumberFormatException nbe) {
+            return null;
+        }
+    }
+
+    private static double parse(String s) {
+        final ByteBuffer buffer = ByteBuffer.wrap(s.getBytes(StandardCharsets.UTF_8));
+        return GeoCsv.parseDouble(buffer, 0, buffer.limit());
+    }
+
+    @Test
+    public void parseDouble() {
+        assertThat(parse("46.283333")).isEqualTo(46.283333);
+        assertThat(parse(" -0.464679 ")).isEqualTo(-0.464679);
+        assertThat(parse("+12")).isEqualTo(12.0);
+        assertThat(parse("1.5e3")).isEqualTo(1500.0);
+        assertThat(parse("0.0000000000000000000000001234")).isEqualTo(1.234e-25);
+        assertThat(parse("12345678901234567890.5")).isEqualTo(12345678901234567890.5);
+        assertThat(parse("")).isNaN();
+        assertThat(parse("-")).isNaN();
+        assertThat(parse("1.2.3")).isNaN();
+        assertThat(parse("abc")).isNaN();
+
+        final Random random = new Random(9);
+        for (int i = 0; i < 100000; i++) {
+            final String value = Double.toString((random.nextDouble() - 0.5) * 360);
+            assertThat(parse(value)).as(value).isEqualTo(Double.parseDouble(value));
+        }
+    }
+
+    @Test
+    public void sameAsSplitter() throws Exception {
+        final Splitter splitter = Splitter.on(';');
+        final List<List<String>> lines = Files.readAllLines(communes()).stream().skip(1)
+                .map(splitter::splitToList).collect(Collectors.toList());
+        final List<Point<Commune>> points = loader().stream(communes(), GeoCsvTest::commune).collect(Collectors.toList());
+
+        assertThat(points).hasSize(lines.size());
+        for (int i = 0; i < lines.size(); i++) {
+            final List<String> line = lines.get(i);
+            final Point<Commune> pt = points.get(i);
+            assertThat(pt.getData().getName()).isEqualTo(line.get(8));
+            assertThat(pt.getData().getCodes_postaux()).isEqualTo(line.get(9));
+            final Double lat = (line.size() >= 13) ? valueOf(line.get(11)) : null;
+            final Double lon = (line.size() >= 13) ? valueOf(line.get(12)) : null;
+            if (lat != null && lon != null) {
+                assertThat(pt.latValue()).isEqualTo(lat);
+                assertThat(pt.lonValue()).isEqualTo(lon);
+            } else {
+                assertThat(pt.isEmpty()).isTrue();
+            }
+        }
+    }
+
+    @Test
+    public void parallel() throws Exception {
+        final List<String> sequential = loader().stream(communes(), GeoCsvTest::commune)
+                .map(p -> p.getData().toString()).collect(Collectors.toList());
+        final List<String> parallel = loader().stream(communes(), GeoCsvTest::commune).parallel()
+                .map(p -> p.getData().toString()).collect(Collectors.toList());
+        assertThat(parallel).isEqualTo(sequential);
+        assertThat(loader().pointSet(communes(), GeoCsvTest::commune).size()).isEqualTo(sequential.size());
+    }
+
+    @Test
+    public void pointSetSameAsStream() throws Exception {
+        final List<Point<Commune>> points = loader().stream(communes(), GeoCsvTest::commune).collect(Collectors.toList());
+        final PointSet<Commune> set = loader().pointSet(communes(), GeoCsvTest::commune);
+        assertThat(set.size()).isEqualTo(points.size());
+        for (int i = 0; i < points.size(); i++) {
+            assertThat(set.getData(i).getName()).isEqualTo(points.get(i).getData().getName());
+            assertThat(set.isPresent(i)).isEqualTo(points.get(i).isPresent());
+            if (set.isPresent(i)) {
+                assertThat(set.latValue(i)).isEqualTo(points.get(i).latValue());
+                assertThat(set.lonValue(i)).isEqualTo(points.get(i).lonValue());
+            }
+        }
+    }
+
+    @Test
+    public void columnsFixedByStream() throws Exception {
+        final GeoCsv loader = loader();
+        final Stream<Point<Commune>> stream = loader.stream(communes(), GeoCsvTest::commune);
+        loader.lat(0).lon(1);
+        assertThat(stream.filter(Point::isPresent).count()).isGreaterThan(30000);
+    }
+
+    @Test
+    public void nullData() throws Exception {
+        assertThatThrownBy(() -> loader().stream(communes(), row -> null).count())
+                .isInstanceOf(NullPointerException.class).hasMessageContaining("returned null");
+        // rethrown by the fork/join pool, which may wrap the message.
+        assertThatThrownBy(() -> loader().pointSet(communes(), row -> null)).isInstanceOf(NullPointerException.class);
+    }
+
+    @Test
+    public void incremental() throws Exception {
+        final List<String> nearest = loader().stream(communes(), GeoCsvTest::commune).parallel()
+                .filter(Distances.withinKm(46.246992, 0.832142, 100))
+                .filter(p -> Depts.limitroph("86").matchPostalCode(p.getData().getCodes_postaux()))
+                .collect(Distances.<Commune>sorter(46.246992, 0.832142).nearestCollector(5))
+                .stream().map(Commune::getCodes_postaux).collect(Collectors.toList());
+        assertThat(nearest).startsWith("86430", "87320", "86430", "87330", "87330");
+    }
+
+    @Test(expected = IllegalStateException.class)
+    public void withoutColumns() throws Exception {
+        GeoCsv.on(';').stream(communes(), GeoCsvTest::commune);
+    }
+}
@@ -0,0 +1,89 @@
+package fr.genin.geocoding;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+import java.util.stream.Collectors;
+
+import static org.assertj.core.api.Assertions.*;
+
+/**
+ * Test class for GridIndex.
+ */
+public class GridIndexTest {
+
+    @SuppressWarnings("unchecked")
+    private static final List<Point<String>> LIST = Arrays.asList(
+            Point.builder("POITIERS").lat(46.580119).lon(0.340751).build(),
+            Point.builder("NIORT").lat(46.323810).lon(-0.464679).build(),
+            Point.builder("LA ROCHELLE").lat(46.159765).lon(-1.151780).build(),
+            Point.builder("2").lat(46.159765).build()
+    );
+
+    @Test(expected = IllegalArgumentException.class)
+    public void badCellSize() {
+        GridIndex.create(0);
+    }
+
+    @Test
+    public void addAndRemove() {
+        final GridIndex<String> index = GridIndex.<String>create().addAll(LIST);
+        assertThat(index.size()).isEqualTo(3);
+        assertThat(index.withinKm(46.348164, -0.387781, 62).stream().map(Distances.Neighbour::getData)
+                .collect(Collectors.toList())).containsExactly("NIORT", "POITIERS");
+
+        assertThat(index.remove(LIST.get(1))).isTrue();
+        assertThat(index.remove(LIST.get(1))).isFalse();
+        assertThat(index.remove(LIST.get(3))).isFalse();
+        assertThat(index.size()).isEqualTo(2);
+        assertThat(index.withinKm(46.348164, -0.387781, 62).stream().map(Distances.Neighbour::getData)
+                .collect(Collectors.toList())).containsExactly("POITIERS");
+    }
+
+    @Test
+    public void removeDropsEmptyCells() {
+        final GridIndex<String> index = GridIndex.<String>create().addAll(LIST);
+        assertThat(index.cellCount()).isEqualTo(3);
+        for (int i = 0; i < 100; i++) {
+            final Point<String> moving = Point.builder("MOVING").lat(40 + i * 0.3).lon(i * 0.3).build();
+            assertThat(index.add(moving)).isTrue();
+            assertThat(index.remove(moving)).isTrue();
+        }
+        assertThat(index.cellCount()).isEqualTo(3);
+        LIST.forEach(index::remove);
+        assertThat(index.cellCount()).isZero();
+        assertThat(index.size()).isZero();
+    }
+
+    @Test
+    public void inBox() {
+        final GridIndex<String> index = GridIndex.<String>create(1).addAll(LIST);
+        assertThat(index.inBox(Distances.BoundingBox.of(46, -0.5, 47, 1)).stream().map(Point::getData)
+                .collect(Collectors.toList())).containsOnly("NIORT", "POITIERS");
+    }
+
+    @Test
+    public void sameAsScan() {
+        final Random random = new Random(3);
+        final List<Point<Integer>> points = new ArrayList<>();
+        for (int i = 0; i < 20000; i++) {
+            points.add(Point.builder(i).lat(-90 + random.nextDouble() * 180).lon(-180 + random.nextDouble() * 360).build());
+        }
+        final GridIndex<Integer> index = GridIndex.<Integer>create(2).addAll(points);
+        final double[][] queries = {{0, 179.5}, {0, -179.5}, {89.5, 10}, {-89, 0}, {46.3, -0.38}, {10, 20}};
+        for (double[] query : queries) {
+            for (double radius : new double[]{50, 500, 3000}) {
+                final Distances.Reference reference = Distances.reference(query[0], query[1]);
+                final List<Integer> expected = points.stream()
+                        .filter(p -> reference.kilometerTo(p.latValue(), p.lonValue()) <= radius)
+                        .map(Point::getData).sorted().collect(Collectors.toList());
+                final List<Integer> found = index.withinKm(query[0], query[1], radius).stream()
+                        .map(Distances.Neighbour::getData).sorted().collect(Collectors.toList());
+                assertThat(found).containsExactlyElementsOf(expected);
+            }
+        }
+    }
+}
@@ -32,4 +32,93 @@ public class LimitrophTest {
         assertThat(Depts.limitroph("86").matchPostalCode(null)).isFalse();
 
     }
+
+    @Test
+    public void corse() {
+        assertThat(Depts.limitroph("2A")).isSameAs(Depts.limitroph("20"));
+        assertThat(Depts.limitroph("2b").list()).containsExactly("20");
+        assertThat(Depts.limitroph("2A").matchPostalCode("20000")).isTrue();
+        assertThat(Depts.limitroph("86").matchPostalCode("20000")).isFalse();
+    }
+
+    @Test
+    public void prefixes() {
+        assertThat(Depts.limitroph("86")).isSameAs(Depts.limitroph("86"));
+        assertThat(Depts.limitroph("86").matchPostalCode("86")).isTrue();
+        assertThat(Depts.limitroph("86").matchPostalCode("8")).isFalse();
+        assertThat(Depts.limitroph("86").matchPostalCode("A6000")).isFalse();
+        assertThat(Depts.limitroph("971").matchPostalCode("97100")).isFalse();
+        assertThat(Depts.limitroph("971").list()).isEmpty();
+    }
+
+    @Test
+    public void matchLikeStartsWith() {
+        for (int dept = 1; dept <= 95; dept++) {
+            final Depts.Limitroph limitroph = Depts.limitroph(String.format("%02d", dept));
+            for (int code = 0; code < 100; code++) {
+                final String postalCode = String.format("%02d123", code);
+                assertThat(limitroph.matchPostalCode(postalCode))
+                        .isEqualTo(limitroph.list().stream().anyMatch(postalCode::startsWith));
+            }
+        }
+    }
+
+    @Test
+    public void rings() {
+        assertThat(Depts.limitroph("86").ring(0)).containsExactly("86");
+        assertThat(Depts.limitroph("86").ring(1)).containsExactly("16", "36", "37", "49", "79", "87");
+        assertThat(Depts.limitroph("86").ring(2)).contains("17", "85", "41", "72", "44", "23", "24", "18", "53")
+                .doesNotContain("86", "79");
+        assertThat(Depts.limitroph("86").within(1)).containsOnlyElementsOf(Depts.limitroph("86").list())
+                .hasSameSizeAs(Depts.limitroph("86").list());
+        assertThat(Depts.limitroph("86").ring(-1)).isEmpty();
+        assertThat(Depts.limitroph("20").within(3)).containsExactly("20");
+        assertThat(Depts.limitroph("unknown").ring(1)).isEmpty();
+    }
+
+    @Test
+    public void hops() {
+        assertThat(Depts.hops("86", "86")).isEqualTo(0);
+        assertThat(Depts.hops("86", "79")).isEqualTo(1);
+        assertThat(Depts.hops("86", "17")).isEqualTo(2);
+        assertThat(Depts.hops("86", "20")).isEqualTo(-1);
+        assertThat(Depts.hops("2A", "20")).isEqualTo(0);
+        assertThat(Depts.hops("86", "unknown")).isEqualTo(-1);
+        assertThat(Depts.hops("59", "06")).isEqualTo(Depts.hops("06", "59")).isGreaterThan(5);
+    }
+
+    @Test
+    public void components() {
+        assertThat(Depts.components()).hasSize(2);
+        assertThat(Depts.components()).contains(java.util.Collections.singletonList("20"));
+        assertThat(Depts.components().stream().mapToInt(java.util.List::size).sum()).isEqualTo(95);
+    }
+
+    @Test
+    public void withinHops() {
+        assertThat(Depts.limitroph("86").matchPostalCode("17000", 1)).isFalse();
+        assertThat(Depts.limitroph("86").matchPostalCode("17000", 2)).isTrue();
+        assertThat(Depts.limitroph("86").matchPostalCode("86000", 0)).isTrue();
+        assertThat(Depts.limitroph("86").matchPostalCode("20000", 50)).isFalse();
+        assertThat(Depts.limitroph("86").matchPostalCode(null, 2)).isFalse();
+        for (int code = 1; code <= 95; code++) {
+            final String postalCode = String.format("%02d000", code);
+            assertThat(Depts.limitroph("86").matchPostalCode(postalCode, 1))
+                    .isEqualTo(Depts.limitroph("86").matchPostalCode(postalCode));
+        }
+        assertThat(Depts.limitroph("86").<String>predicate(2, s -> s).test("85000")).isTrue();
+    }
+
+    @Test
+    public void preload() {
+        Depts.preload();
+        final java.util.Properties properties = new java.util.Properties();
+        properties.setProperty("01", "02,01");
+        properties.setProperty("02", "03");
+        assertThat(Depts.validate(properties)).containsExactly(
+                "02 is a neighbour of 01 but not the reverse",
+                "02 is not its own neighbour",
+                "03 is a neighbour of 02 but not the reverse",
+                "03 is not a key");
+    }
 }
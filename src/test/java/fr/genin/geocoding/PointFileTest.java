@@ -0,0 +1,124 @@
+package fr.genin.geocoding;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+import static org.assertj.core.api.Assertions.*;
+
+/**
+ * Test class for PointFile.
+ */
+public class PointFileTest {
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    private static final List<Commune> COMMUNES = Arrays.asList(
+            commune("Poitiers", "86000", 46.580119, 0.340751),
+            commune("Niort", "79000", 46.323810, -0.464679),
+            commune("La Rochelle", "17000", 46.159765, -1.151780),
+            commune("Bussière-Poitevine", "87320", null, null),
+            commune(null, "00000", 46.159765, null)
+    );
+
+    private static Commune commune(String name, String postalCode, Double lat, Double lon) {
+        final Commune commune = new Commune();
+        commune.setName(name);
+        commune.setCodes_postaux(postalCode);
+        commune.setLatitude(lat);
+        commune.setLongitude(lon);
+        return commune;
+    }
+
+    private PointFile write() throws IOException {
+        final Path path = folder.newFile("communes.geo").toPath();
+        final Map<String, Function<Commune, String>> fields = new LinkedHashMap<>();
+        fields.put("name", Commune::getName);
+        fields.put("postalCode", Commune::getCodes_postaux);
+        PointFile.write(path, COMMUNES.stream()
+                .map(c -> Point.builder(c).lat(c.getLatitude()).lon(c.getLongitude()).<Commune>build())
+                .collect(Collectors.toList()), fields);
+        return PointFile.open(path);
+    }
+
+    @Test
+    public void readBack() throws IOException {
+        final PointFile file = write();
+        assertThat(file.size()).isEqualTo(5);
+        assertThat(file.getFields()).containsExactly("name", "postalCode");
+        assertThat(file.latValue(1)).isEqualTo(46.323810);
+        assertThat(file.lonValue(1)).isEqualTo(-0.464679);
+        assertThat(file.getString(3, 0)).isEqualTo("Bussière-Poitevine");
+        assertThat(file.get(3).isPresent()).isFalse();
+        assertThat(file.get(4).getLat()).contains(46.159765);
+        assertThat(file.get(4).getData().getString("name")).isEmpty();
+        assertThat(file.get(2).getData().getString("postalCode")).isEqualTo("17000");
+        assertThat(file.stream().map(p -> p.getData().getString(0)).collect(Collectors.toList()))
+                .containsExactly("Poitiers", "Niort", "La Rochelle", "Bussière-Poitevine", "");
+    }
+
+    @Test
+    public void sort() throws IOException {
+        final PointFile file = write();
+        final List<String> sorted = Distances.<PointFile.Record>sorter(46.348164, -0.387781).sort(file.points())
+                .stream().map(r -> r.getString("name")).collect(Collectors.toList());
+        assertThat(sorted).containsExactly("Niort", "Poitiers", "La Rochelle", "Bussière-Poitevine", "");
+        assertThat(Distances.<PointFile.Record>sorter(46.348164, -0.387781).sortSet(file.toPointSet())
+                .stream().map(r -> r.getString("name")).collect(Collectors.toList())).containsExactlyElementsOf(sorted);
+    }
+
+    @Test(expected = IOException.class)
+    public void notAPointFile() throws IOException {
+        final Path path = folder.newFile("empty.geo").toPath();
+        Files.write(path, "not a point file at all".getBytes("UTF-8"));
+        PointFile.open(path);
+    }
+
+    @Test
+    public void truncated() throws IOException {
+        write();
+        final byte[] bytes = Files.readAllBytes(folder.getRoot().toPath().resolve("communes.geo"));
+        for (int length : new int[]{16, 100, bytes.length - 1}) {
+            final Path truncated = folder.newFile("truncated" + length + ".geo").toPath();
+            Files.write(truncated, Arrays.copyOf(bytes, length));
+            assertThatThrownBy(() -> PointFile.open(truncated)).isInstanceOf(IOException.class)
+                    .hasMessageStartingWith("Truncated point file");
+        }
+    }
+
+    @Test
+    public void corruptedOffsets() throws IOException {
+        write();
+        final byte[] bytes = Files.readAllBytes(folder.getRoot().toPath().resolve("communes.geo"));
+        // the offsets follow the header and the 5 lattitudes and longitudes : the 2 field names, then 2 per record.
+        final Path corruptedName = folder.newFile("name.geo").toPath();
+        Files.write(corruptedName, corrupt(bytes, 1, -1));
+        assertThatThrownBy(() -> PointFile.open(corruptedName)).isInstanceOf(IOException.class)
+                .hasMessageStartingWith("Corrupted point file");
+
+        final Path corruptedRecord = folder.newFile("record.geo").toPath();
+        Files.write(corruptedRecord, corrupt(bytes, 3, Integer.MAX_VALUE));
+        final PointFile file = PointFile.open(corruptedRecord);
+        assertThat(file.getString(1, 0)).isEqualTo("Niort");
+        assertThatThrownBy(() -> file.getString(0, 1)).isInstanceOf(UncheckedIOException.class)
+                .hasMessageContaining("Corrupted point file");
+    }
+
+    private static byte[] corrupt(byte[] bytes, int position, int offset) {
+        return ByteBuffer.wrap(bytes.clone()).order(ByteOrder.LITTLE_ENDIAN).putInt(96 + 4 * position, offset).array();
+    }
+}
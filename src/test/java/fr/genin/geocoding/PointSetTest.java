@@ -0,0 +1,78 @@
+package fr.genin.geocoding;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+import java.util.stream.Collectors;
+
+import static org.assertj.core.api.Assertions.*;
+
+/**
+ * Test class for PointSet.
+ */
+public class PointSetTest {
+
+    @SuppressWarnings("unchecked")
+    private static final List<Point<String>> LIST_WITH_NULL = Arrays.asList(
+            Point.builder("POITIERS").lat(46.580119).lon(0.340751).build(),
+            Point.builder("NIORT").lat(46.323810).lon(-0.464679).build(),
+            Point.builder("LA ROCHELLE").lat(46.159765).lon(-1.151780).build(),
+            Point.builder("2").lat(46.159765).build(),
+            Point.builder("3").lon(-1.151780).build(),
+            Point.builder("1").build()
+    );
+
+    @Test
+    public void views() {
+        final PointSet<String> set = PointSet.of(LIST_WITH_NULL);
+        assertThat(set.size()).isEqualTo(6);
+        assertThat(set.getData(1)).isEqualTo("NIORT");
+        assertThat(set.latValue(1)).isEqualTo(46.323810);
+        assertThat(set.isPresent(1)).isTrue();
+        assertThat(set.isPresent(3)).isFalse();
+        assertThat(set.get(3).getLat()).contains(46.159765);
+        assertThat(set.get(3).getLon()).isEmpty();
+        final List<String> datas = new ArrayList<>();
+        set.forEach(pt -> datas.add(pt.getData()));
+        assertThat(datas).containsExactly("POITIERS", "NIORT", "LA ROCHELLE", "2", "3", "1");
+    }
+
+    @Test(expected = IndexOutOfBoundsException.class)
+    public void outOfBounds() {
+        PointSet.of(LIST_WITH_NULL).getData(6);
+    }
+
+    @Test
+    public void sortSet() {
+        final PointSet<String> set = PointSet.of(LIST_WITH_NULL);
+        assertThat(Distances.<String>sorter(46.348164, -0.387781).sortSet(set))
+                .containsExactly("NIORT", "POITIERS", "LA ROCHELLE", "2", "3", "1");
+        assertThat(Distances.<String>sorter(46.348164, -0.387781).withSubComparatorOfPoints(String::compareTo)
+                .nullsFirst().sortSet(set))
+                .containsExactly("1", "2", "3", "NIORT", "POITIERS", "LA ROCHELLE");
+        assertThat(Distances.<String>sorter(46.348164, -0.387781).sortSet(null)).isEmpty();
+    }
+
+    @Test
+    public void sameAsPoints() {
+        final Random random = new Random(1);
+        final List<Data> datas = new ArrayList<>();
+        for (int i = 0; i < 5000; i++) {
+            datas.add(new Data("D" + i, 41 + random.nextDouble() * 10, -5 + random.nextDouble() * 13));
+        }
+        final PointSet<Data> set = PointSet.of(datas, d -> d.lat, d -> d.lon);
+        final List<Point<Data>> points = datas.stream().map(d -> Point.builder(d).lat(d.lat).lon(d.lon).<Data>build())
+                .collect(Collectors.toList());
+        for (Distances.Formula formula : Distances.Formula.values()) {
+            final Distances.Sorter<Data> sorter = Distances.<Data>sorter(46.348164, -0.387781).formula(formula);
+            assertThat(sorter.sortSet(set)).containsExactlyElementsOf(sorter.sort(points));
+            final List<Double> expected = sorter.distances(points).stream().map(Distances.Distance::milesValue)
+                    .collect(Collectors.toList());
+            assertThat(sorter.distancesOfSet(set).stream().map(Distances.Distance::milesValue)
+                    .collect(Collectors.toList())).containsExactlyElementsOf(expected);
+        }
+    }
+}
@@ -0,0 +1,115 @@
+package fr.genin.geocoding;
+
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+
+import static org.assertj.core.api.Assertions.*;
+
+/**
+ * Test class for the precisions of the distances.
+ */
+public class PrecisionTest {
+
+    private static final double METRES_PER_MILE = 1609.344;
+    private static final double LAT = 46.246992;
+    private static final double LON = 0.832142;
+
+    private static PointSet<String> communes;
+
+    @BeforeClass
+    public static void load() throws Exception {
+        communes = GeoCsv.on(';').lat(11).lon(12).withHeader().pointSet(
+                new File(PrecisionTest.class.getResource("/eucircos_regions_departements_circonscriptions_communes_gps.csv").toURI()).toPath(),
+                row -> row.get(8));
+    }
+
+    @Test
+    public void milesBetween() {
+        final Random random = new Random(11);
+        for (int i = 0; i < 10000; i++) {
+            final double lat1 = random.nextDouble() * 180 - 90;
+            final double lon1 = random.nextDouble() * 360 - 180;
+            final double lat2 = random.nextDouble() * 180 - 90;
+            final double lon2 = random.nextDouble() * 360 - 180;
+            final double exact = Distances.reference(lat1, lon1, Distances.Formula.HAVERSINE).milesTo(lat2, lon2);
+            final double fast = Distances.milesBetween(lat1, lon1, lat2, lon2, Distances.Precision.FAST);
+            assertThat(Math.abs(fast - exact) * METRES_PER_MILE).isLessThan(Distances.Precision.FAST.maxErrorMetres());
+        }
+        assertThat(Distances.milesBetween(46.580119, 0.340751, 46.323810, -0.464679, Distances.Precision.EXACT))
+                .isEqualTo(Distances.milesBetween(46.580119, 0.340751, 46.323810, -0.464679));
+    }
+
+    @Test
+    public void reference() {
+        final Distances.Reference exact = Distances.reference(LAT, LON);
+        final Distances.Reference fast = exact.with(Distances.Precision.FAST);
+        assertThat(fast.getPrecision()).isEqualTo(Distances.Precision.FAST);
+        assertThat(fast.with(Distances.Formula.HAVERSINE).getPrecision()).isEqualTo(Distances.Precision.FAST);
+        assertThat(fast.milesTo(46.580119, 0.340751)).isCloseTo(exact.milesTo(46.580119, 0.340751), within(1e-6));
+        assertThat(fast.milesTo(communes)).isEqualTo(fast.fastMilesTo(communes));
+        assertThat(fast.milesTo(Double.NaN, 0.340751)).isNaN();
+
+        final Distances.Reference vincenty = Distances.reference(LAT, LON, Distances.Formula.VINCENTY);
+        assertThat(vincenty.with(Distances.Precision.FAST).milesTo(46.580119, 0.340751))
+                .isEqualTo(vincenty.milesTo(46.580119, 0.340751));
+    }
+
+    @Test
+    public void fastOrderingOfCommunes() {
+        final double tolerance = 2 * Distances.Precision.FAST.maxErrorMetres() / METRES_PER_MILE;
+        final double[] exact = Distances.reference(LAT, LON).milesTo(communes);
+        final Distances.Sorter<String> fastSorter = Distances.<String>sorter(LAT, LON).precision(Distances.Precision.FAST);
+        final Distances.Sorter<String> exactSorter = Distances.<String>sorter(LAT, LON);
+
+        final List<String> fast = fastSorter.sortSet(communes);
+        final List<String> sortedExact = exactSorter.sortSet(communes);
+        assertThat(sorted(fast)).isEqualTo(sorted(sortedExact));
+
+        // the exact distances in the fast order only decrease within the tolerance.
+        final List<Distances.Neighbour<String>> neighbours = fastSorter.neighbours(toPoints(communes));
+        double previous = 0;
+        int present = 0;
+        for (Distances.Neighbour<String> neighbour : neighbours) {
+            final Point<String> pt = neighbour.getPoint();
+            if (pt.isEmpty()) {
+                continue;
+            }
+            final double miles = Distances.milesBetween(LAT, LON, pt.latValue(), pt.lonValue());
+            assertThat(miles).isGreaterThanOrEqualTo(previous - tolerance);
+            assertThat(Math.abs(neighbour.getDistance().milesValue() - miles)).isLessThan(tolerance);
+            previous = Math.max(previous, miles);
+            present++;
+        }
+        assertThat(present).isEqualTo((int) Arrays.stream(exact).filter(d -> !Double.isNaN(d)).count());
+    }
+
+    @Test
+    public void fastKeyOfOnePointSameAsSet() {
+        final Distances.Reference fast = Distances.reference(LAT, LON).with(Distances.Precision.FAST);
+        final double[] keys = fast.keysTo(communes);
+        for (int i = 0; i < communes.size(); i++) {
+            assertThat(fast.keyTo(communes.lats()[i], communes.lons()[i])).isEqualTo(keys[i]);
+        }
+    }
+
+    private static List<String> sorted(List<String> list) {
+        final List<String> sorted = new ArrayList<>(list);
+        Collections.sort(sorted);
+        return sorted;
+    }
+
+    private static List<Point<String>> toPoints(PointSet<String> set) {
+        final List<Point<String>> points = new ArrayList<>(set.size());
+        for (Point<String> pt : set) {
+            points.add(pt);
+        }
+        return points;
+    }
+}
@@ -2,9 +2,13 @@ package fr.genin.geocoding;
 
 import org.junit.Test;
 
+import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collections;
+import java.util.LinkedList;
 import java.util.List;
+import java.util.Random;
+import java.util.concurrent.ForkJoinPool;
 import java.util.stream.Collectors;
 import java.util.stream.Stream;
 
@@ -62,6 +66,16 @@ public class SorterTest {
                 "62.36215286811597");
     }
 
+    @Test
+    public void distancesOfLinkedList() {
+        final List<Point<String>> points = randomPoints(2000);
+        final Distances.Sorter<String> sorter = Distances.sorter(46.348164, -0.387781);
+        assertThat(sorter.distances(new LinkedList<>(points)).stream().map(Distances.Distance::kilometerValue)
+                .collect(Collectors.toList()))
+                .isEqualTo(sorter.distances(points).stream().map(Distances.Distance::kilometerValue)
+                        .collect(Collectors.toList()));
+    }
+
     @Test
     public void desc() {
         final List<String> sortedInverse = Distances.<String>sorter(46.348164, -0.387781).desc().sort(LIST);
@@ -124,4 +138,127 @@ public class SorterTest {
         assertThat(collect)
                 .isNotNull().isNotEmpty().containsExactly("NIORT", "POITIERS", "LA ROCHELLE");
     }
+
+    @Test
+    public void mapperKeepsDuplicates() {
+        final List<Data> datas = new ArrayList<>(DATAS);
+        datas.addAll(DATAS);
+        final List<String> sorted = Distances.<Data>sorter(46.348164, -0.387781)
+                .sort(datas, (d) -> Point.builder(d).lat(d.lat).lon(d.lon).build())
+                .stream().map(d -> d.test).collect(Collectors.toList());
+        assertThat(sorted).containsExactly("NIORT", "NIORT", "POITIERS", "POITIERS", "LA ROCHELLE", "LA ROCHELLE");
+    }
+
+    @Test
+    public void parallelMapperMatchesSort() {
+        final List<Point<String>> random = randomPoints(Distances.Sorter.PARALLEL_THRESHOLD * 2);
+        final List<Point<Integer>> points = new ArrayList<>();
+        for (int i = 0; i < random.size(); i++) {
+            points.add(Point.builder(i).lat(random.get(i).getLat().orElse(null))
+                    .lon(random.get(i).getLon().orElse(null)).build());
+        }
+        final List<Integer> indexes = points.stream().map(Point::getData).collect(Collectors.toList());
+        final Distances.Sorter<Integer> sorter = Distances.<Integer>sorter(46.348164, -0.387781);
+        assertThat(sorter.sort(indexes, points::get)).containsExactlyElementsOf(sorter.sort(points));
+    }
+
+    @Test
+    public void parallelMatchesSequential() {
+        final List<Point<String>> points = randomPoints(20000);
+        final ForkJoinPool pool = new ForkJoinPool(4);
+        try {
+            final List<String> expected = Distances.<String>sorter(46.348164, -0.387781).desc().sort(points);
+            final List<String> sorted = Distances.<String>sorter(46.348164, -0.387781).desc()
+                    .parallel(pool, 100).sort(points);
+            assertThat(sorted).containsExactlyElementsOf(expected);
+
+            final PointSet<String> set = PointSet.of(points);
+            assertThat(Distances.<String>sorter(46.348164, -0.387781).desc().parallel(pool, 100).sortSet(set))
+                    .containsExactlyElementsOf(Distances.<String>sorter(46.348164, -0.387781).desc().sortSet(set));
+        } finally {
+            pool.shutdown();
+        }
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void parallelBadThreshold() {
+        Distances.<String>sorter(46.348164, -0.387781).parallel(ForkJoinPool.commonPool(), 0);
+    }
+
+    @Test
+    public void withReference() {
+        final Distances.Reference chauray = Distances.reference(46.348164, -0.387781);
+        assertThat(Distances.<String>sorter(chauray).sort(LIST)).containsExactly("NIORT", "POITIERS", "LA ROCHELLE");
+        assertThat(Distances.<String>sorter(chauray).desc().sort(LIST)).containsExactly("LA ROCHELLE", "POITIERS", "NIORT");
+    }
+
+    @Test
+    public void keyedSortMatchesComparator() {
+        final List<Point<String>> points = randomPoints(5000);
+        final Distances.Sorter<String> sorter = Distances.<String>sorter(46.348164, -0.387781)
+                .desc().nullsFirst().withSubComparatorOfPoints(String::compareTo);
+        final List<String> expected = points.stream().sorted(sorter.getComparatorPoints())
+                .map(Point::getData).collect(Collectors.toList());
+        assertThat(sorter.sort(points)).containsExactlyElementsOf(expected);
+    }
+
+    @Test
+    public void nearest() {
+        assertThat(Distances.<String>sorter(46.348164, -0.387781).nearest(LIST, 2)).containsExactly("NIORT", "POITIERS");
+        assertThat(Distances.<String>sorter(46.348164, -0.387781).farthest(LIST, 2)).containsExactly("LA ROCHELLE", "POITIERS");
+        assertThat(Distances.<String>sorter(46.348164, -0.387781).nearest(LIST, 0)).isEmpty();
+        assertThat(Distances.<String>sorter(46.348164, -0.387781).nearest(null, 3)).isEmpty();
+        assertThat(Distances.<String>sorter(46.348164, -0.387781).nullsFirst().nearest(LIST_WITH_NULL, 4))
+                .containsExactly("2", "3", "1", "NIORT");
+        assertThat(Distances.<Data>sorter(46.348164, -0.387781)
+                .nearest(DATAS, (d) -> Point.builder(d).lat(d.lat).lon(d.lon).build(), 10)
+                .stream().map(d -> d.test).collect(Collectors.toList()))
+                .containsExactly("NIORT", "POITIERS", "LA ROCHELLE");
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void nearestNegative() {
+        Distances.<String>sorter(46.348164, -0.387781).nearest(LIST, -1);
+    }
+
+    @Test
+    public void nearestMatchesSort() {
+        final List<Point<String>> points = randomPoints(5000);
+        final Distances.Sorter<String> sorter = Distances.<String>sorter(46.348164, -0.387781)
+                .withSubComparatorOfPoints(String::compareTo);
+        final List<String> sorted = sorter.sort(points);
+        assertThat(sorter.nearest(points, 50)).containsExactlyElementsOf(sorted.subList(0, 50));
+        assertThat(points.parallelStream().collect(sorter.nearestCollector(50))).containsExactlyElementsOf(sorted.subList(0, 50));
+
+        final List<String> inverse = sorter.desc().nullsFirst().sort(points);
+        assertThat(sorter.farthest(points, 50)).containsExactlyElementsOf(inverse.subList(0, 50));
+        assertThat(points.parallelStream().collect(sorter.farthestCollector(50))).containsExactlyElementsOf(inverse.subList(0, 50));
+    }
+
+    @Test
+    public void neighbours() {
+        final List<Distances.Neighbour<String>> neighbours = Distances.<String>sorter(46.348164, -0.387781).neighbours(LIST_WITH_NULL);
+        assertThat(neighbours.stream().map(Distances.Neighbour::getData).collect(Collectors.toList()))
+                .containsExactly("NIORT", "POITIERS", "LA ROCHELLE", "2", "3", "1");
+        assertThat(neighbours.get(0).getDistance().kilometerValue()).isEqualTo(6.494780510980947, offset(1e-9));
+        assertThat(neighbours.get(2).getDistance().kilometerValue()).isEqualTo(62.36215286811597, offset(1e-9));
+        assertThat(neighbours.get(3).getDistance().isPresent()).isFalse();
+        assertThat(Distances.<String>sorter(46.348164, -0.387781).neighbours(null)).isEmpty();
+    }
+
+    private static List<Point<String>> randomPoints(int size) {
+        final Random random = new Random(42);
+        final List<Point<String>> points = new ArrayList<>();
+        for (int i = 0; i < size; i++) {
+            final Point.Builder<String> builder = Point.builder("P" + random.nextInt(100));
+            if (random.nextInt(20) != 0) {
+                builder.lat(41 + Math.round(random.nextDouble() * 1000) / 100.0);
+            }
+            if (random.nextInt(20) != 0) {
+                builder.lon(-5 + Math.round(random.nextDouble() * 1000) / 100.0);
+            }
+            points.add(builder.build());
+        }
+        return points;
+    }
 }
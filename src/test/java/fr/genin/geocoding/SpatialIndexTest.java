@@ -0,0 +1,87 @@
+package fr.genin.geocoding;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+import java.util.stream.Collectors;
+
+import static org.assertj.core.api.Assertions.*;
+
+/**
+ * Test class for SpatialIndex.
+ */
+public class SpatialIndexTest {
+
+    @SuppressWarnings("unchecked")
+    private static final List<Point<String>> LIST = Arrays.asList(
+            Point.builder("POITIERS").lat(46.580119).lon(0.340751).build(),
+            Point.builder("NIORT").lat(46.323810).lon(-0.464679).build(),
+            Point.builder("LA ROCHELLE").lat(46.159765).lon(-1.151780).build(),
+            Point.builder("2").lat(46.159765).build()
+    );
+
+    private static List<Point<Integer>> randomPoints(int size) {
+        final Random random = new Random(7);
+        final List<Point<Integer>> points = new ArrayList<>();
+        for (int i = 0; i < size; i++) {
+            points.add(Point.builder(i)
+                    .lat(-90 + random.nextDouble() * 180)
+                    .lon(-180 + random.nextDouble() * 360)
+                    .build());
+        }
+        return points;
+    }
+
+    @Test
+    public void empty() {
+        final SpatialIndex<String> index = SpatialIndex.of(Collections.<Point<String>>emptyList());
+        assertThat(index.size()).isEqualTo(0);
+        assertThat(index.nearest(46.348164, -0.387781, 3)).isEmpty();
+        assertThat(index.withinKm(46.348164, -0.387781, 100)).isEmpty();
+    }
+
+    @Test
+    public void nearest() {
+        final SpatialIndex<String> index = SpatialIndex.of(LIST);
+        assertThat(index.size()).isEqualTo(3);
+        final List<Distances.Neighbour<String>> nearest = index.nearest(46.348164, -0.387781, 2);
+        assertThat(nearest.stream().map(Distances.Neighbour::getData).collect(Collectors.toList()))
+                .containsExactly("NIORT", "POITIERS");
+        assertThat(nearest.get(0).getDistance().kilometerValue()).isEqualTo(6.494780510980947, offset(1e-9));
+    }
+
+    @Test
+    public void withinKm() {
+        final SpatialIndex<String> index = SpatialIndex.of(LIST);
+        assertThat(index.withinKm(46.348164, -0.387781, 62).stream().map(Distances.Neighbour::getData)
+                .collect(Collectors.toList())).containsExactly("NIORT", "POITIERS");
+        assertThat(index.withinKm(46.348164, -0.387781, 1)).isEmpty();
+    }
+
+    @Test
+    public void sameAsSorter() {
+        final List<Point<Integer>> points = randomPoints(20000);
+        final SpatialIndex<Integer> index = SpatialIndex.of(points);
+        final Random random = new Random(11);
+        for (int q = 0; q < 50; q++) {
+            final double lat = -90 + random.nextDouble() * 180;
+            final double lon = -180 + random.nextDouble() * 360;
+            final Distances.Reference reference = Distances.reference(lat, lon);
+
+            final List<Integer> expected = Distances.<Integer>sorter(lat, lon).nearest(points, 10);
+            final List<Integer> found = index.nearest(lat, lon, 10).stream()
+                    .map(Distances.Neighbour::getData).collect(Collectors.toList());
+            assertThat(found).containsExactlyElementsOf(expected);
+
+            final List<Integer> within = points.stream()
+                    .filter(p -> reference.kilometerTo(p.latValue(), p.lonValue()) <= 800)
+                    .map(Point::getData).sorted().collect(Collectors.toList());
+            assertThat(index.withinKm(lat, lon, 800).stream().map(Distances.Neighbour::getData).sorted()
+                    .collect(Collectors.toList())).containsExactlyElementsOf(within);
+        }
+    }
+}
@@ -0,0 +1,84 @@
+package fr.genin.geocoding;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Random;
+
+import static org.assertj.core.api.Assertions.*;
+
+/**
+ * Test class for Distances.Tracker.
+ */
+public class TrackerTest {
+
+    private static final double LAT = 46.348164;
+    private static final double LON = -0.387781;
+
+    @Test
+    public void putMoveRemove() {
+        final Distances.Tracker<String> tracker = Distances.<String>sorter(LAT, LON).tracker();
+        assertThat(tracker.put(Point.builder("LA ROCHELLE").lat(46.159765).lon(-1.151780).build())).isTrue();
+        assertThat(tracker.put(Point.builder("POITIERS").lat(46.580119).lon(0.340751).build())).isTrue();
+        assertThat(tracker.put(Point.builder("NIORT").lat(46.323810).lon(-0.464679).build())).isTrue();
+        assertThat(tracker.list()).containsExactly("NIORT", "POITIERS", "LA ROCHELLE");
+
+        assertThat(tracker.put(Point.builder("LA ROCHELLE").lat(46.348164).lon(-0.387781).build())).isFalse();
+        assertThat(tracker.size()).isEqualTo(3);
+        assertThat(tracker.top(2)).containsExactly("LA ROCHELLE", "NIORT");
+        assertThat(tracker.neighbours(1).get(0).getDistance().kilometerValue()).isCloseTo(0.0, within(1e-3));
+
+        assertThat(tracker.remove("NIORT")).isTrue();
+        assertThat(tracker.remove("NIORT")).isFalse();
+        assertThat(tracker.contains("NIORT")).isFalse();
+        assertThat(tracker.get("POITIERS").get().latValue()).isEqualTo(46.580119);
+        assertThat(tracker.list()).containsExactly("LA ROCHELLE", "POITIERS");
+        assertThat(tracker.top(0)).isEmpty();
+        tracker.clear();
+        assertThat(tracker.isEmpty()).isTrue();
+    }
+
+    @Test
+    public void optionsAreCopied() {
+        final Distances.Sorter<String> sorter = Distances.<String>sorter(LAT, LON).desc();
+        final Distances.Tracker<String> tracker = sorter.tracker();
+        sorter.asc();
+        tracker.put(Point.builder("NIORT").lat(46.323810).lon(-0.464679).build());
+        tracker.put(Point.builder("POITIERS").lat(46.580119).lon(0.340751).build());
+        tracker.put(Point.builder("EMPTY").build());
+        assertThat(tracker.list()).containsExactly("POITIERS", "NIORT", "EMPTY");
+    }
+
+    @Test
+    public void sameAsSort() {
+        final Random random = new Random(3);
+        final Map<Integer, Point<Integer>> positions = new LinkedHashMap<>();
+        final Distances.Tracker<Integer> tracker = Distances.<Integer>sorter(LAT, LON)
+                .nullsFirst().withSubComparatorOfPoints(Comparator.reverseOrder()).tracker();
+        for (int i = 0; i < 5000; i++) {
+            final int id = random.nextInt(300);
+            final int action = random.nextInt(10);
+            if (action == 0) {
+                assertThat(tracker.remove(id)).isEqualTo(positions.remove(id) != null);
+                continue;
+            }
+            // few distinct positions, for many ties.
+            final Point<Integer> pt = (action == 1) ? Point.builder(id).build()
+                    : Point.builder(id).lat(46 + random.nextInt(10) / 10.0).lon(random.nextInt(10) / 10.0).build();
+            assertThat(tracker.put(pt)).isEqualTo(!positions.containsKey(id));
+            positions.put(id, pt);
+        }
+        final java.util.List<Integer> expected = Distances.<Integer>sorter(LAT, LON)
+                .nullsFirst().withSubComparatorOfPoints(Comparator.reverseOrder()).sort(new ArrayList<>(positions.values()));
+        assertThat(tracker.list()).containsExactlyElementsOf(expected);
+        assertThat(tracker.top(10)).containsExactlyElementsOf(expected.subList(0, 10));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void negativeTop() {
+        Distances.<String>sorter(LAT, LON).tracker().top(-1);
+    }
+}
@@ -0,0 +1,42 @@
+package fr.genin.geocoding;
+
+import org.junit.Test;
+
+import java.util.Random;
+
+import static org.assertj.core.api.Assertions.*;
+
+/**
+ * Test of the vector kernel, run by failsafe on the multi-release jar with --add-modules jdk.incubator.vector.
+ */
+public class VectorKernelIT {
+
+    @Test
+    public void vectorKernelIsLoaded() {
+        assertThat(BulkKernel.INSTANCE.getClass().getName()).isEqualTo("fr.genin.geocoding.VectorKernel");
+    }
+
+    @Test
+    public void vectorMatchesScalar() {
+        final Random random = new Random(5);
+        // not a multiple of the vector length, for the scalar tail.
+        final int size = 1001;
+        final double[] lats = new double[size];
+        final double[] cosLats = new double[size];
+        final double[] lons = new double[size];
+        for (int i = 0; i < size; i++) {
+            lats[i] = random.nextDouble() * 180 - 90;
+            cosLats[i] = Math.cos(Math.toRadians(lats[i]));
+            lons[i] = random.nextDouble() * 360 - 180;
+        }
+        lats[7] = Double.NaN;
+        final double refLat = 46.348164;
+        final double refCosLat = Math.cos(Math.toRadians(refLat));
+        final double refLon = -0.387781;
+        final double[] vector = new double[size];
+        final double[] scalar = new double[size];
+        BulkKernel.INSTANCE.distances(refLat, refCosLat, refLon, lats, cosLats, lons, Distances.MILES_PER_RADIAN, vector, 0, size);
+        new BulkKernel.Scalar().distances(refLat, refCosLat, refLon, lats, cosLats, lons, Distances.MILES_PER_RADIAN, scalar, 0, size);
+        assertThat(vector).containsExactly(scalar);
+    }
+}